@@ -0,0 +1,67 @@
+package cs2030.simulator;
+
+/**
+ * The antithetic variates of another source: every uniform U is replaced by 
+ * 1 - U, and every exponential X by the exponential of 1 - U where U is the 
+ * probability of exceeding X. The variates have the same distributions as 
+ * those of the source but are negatively correlated with them, so the 
+ * average of a simulation and its antithetic twin varies less than that of 
+ * two independent simulations.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+final class AntitheticVariates implements VariateSource {
+    private final VariateSource source;
+    private final double lambda;
+    private final double mu;
+    private final double rho;
+
+    /**
+     * Creates the antithetic variates of the given source.
+     *
+     * @param source Source of the variates.
+     * @param lambda Arrival rate of the source.
+     * @param mu Service rate of the source.
+     * @param rho Resting rate of the source.
+     * */
+    AntitheticVariates(VariateSource source, double lambda, double mu, double rho) {
+        this.source = source;
+        this.lambda = lambda;
+        this.mu = mu;
+        this.rho = rho;
+    }
+
+    @Override
+    public double genInterArrivalTime() {
+        return mirror(source.genInterArrivalTime(), lambda);
+    }
+
+    @Override
+    public double genServiceTime() {
+        return mirror(source.genServiceTime(), mu);
+    }
+
+    @Override
+    public double genRandomRest() {
+        return 1 - source.genRandomRest();
+    }
+
+    @Override
+    public double genRestPeriod() {
+        return mirror(source.genRestPeriod(), rho);
+    }
+
+    @Override
+    public double genCustomerType() {
+        return 1 - source.genCustomerType();
+    }
+
+    /**
+     * Returns the exponential of the complement of the tail probability of x.
+     * */
+    private static double mirror(double x, double rate) {
+        double tail = Math.exp(-rate * x);
+        return -Math.log1p(-tail) / rate;
+    }
+
+}
@@ -0,0 +1,33 @@
+package cs2030.simulator;
+
+/**
+ * A source of the arrivals of a simulation, in order of arrival time. The 
+ * simulator asks for the next arrival only once the previous one is handled.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+interface ArrivalSource extends AutoCloseable {
+
+    /**
+     * Checks if there are more customers to arrive.
+     *
+     * @return True if another arrival can be generated.
+     * */
+    boolean hasNext();
+
+    /**
+     * Generates the next arrival, in order of arrival time.
+     *
+     * @return The arrival event of the next customer.
+     * */
+    Event next();
+
+    /**
+     * Releases what the source holds open, such as a file, even if not every
+     * arrival was generated. Closing a source more than once has no effect.
+     * */
+    @Override
+    default void close() {
+    }
+
+}
@@ -0,0 +1,86 @@
+package cs2030.simulator;
+
+/**
+ * Generates the arrivals of a simulation one at a time, so that only the next
+ * arrival is ever scheduled instead of every arrival of the run.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class ArrivalStream implements ArrivalSource {
+    private final SimulationContext context;
+    private final VariateSource rng;
+    private final EventFactory events;
+    private final Statistics stats;
+    /**Probability of a greedy customer. */
+    private final double greedProbability;
+    /**Total number of customers. */
+    private final int total;
+    /**Whether every customer is given a service time on arrival. */
+    private final boolean drawsServices;
+    private int generated;
+    private double timestamp;
+
+    /**
+     * Creates a stream of arrivals starting at time 0.000.
+     *
+     * @param context Simulation allocating the customer ids and providing the 
+     *     rng for the arrival times and customer types.
+     * @param total The total number of customer arrivals.
+     * @param greedP Probability of a greedy customer.
+     * @param events Factory of the arrival events.
+     * */
+    ArrivalStream(SimulationContext context, int total, double greedP, EventFactory events) {
+        this(context, total, greedP, events, false);
+    }
+
+    /**
+     * Creates a stream of arrivals starting at time 0.000, whose customers may 
+     * be given their service times on arrival.
+     *
+     * @param context Simulation allocating the customer ids and providing the 
+     *     rng for the arrival times, customer types and service times.
+     * @param total The total number of customer arrivals.
+     * @param greedP Probability of a greedy customer.
+     * @param events Factory of the arrival events.
+     * @param drawsServices Whether every customer is given a service time on 
+     *     arrival, instead of the server drawing it.
+     * */
+    ArrivalStream(SimulationContext context, int total, double greedP, EventFactory events,
+        boolean drawsServices) {
+        this.drawsServices = drawsServices;
+        this.context = context;
+        this.rng = context.getRng();
+        this.events = events;
+        this.stats = context.getStatistics();
+        this.greedProbability = greedP;
+        this.total = total;
+        this.generated = 0;
+        this.timestamp = 0.000;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return generated < total;
+    }
+
+    @Override
+    public Event next() {
+        assert hasNext();
+        double time = timestamp;
+        timestamp += rng.genInterArrivalTime();
+        generated++;
+
+        Customer guy;
+        if (drawsServices) {
+            boolean isGreedy = rng.genCustomerType() < greedProbability;
+            guy = new Customer(context.nextCustomerId(), time, isGreedy, rng.genServiceTime());
+        } else {
+            guy = rng.genCustomerType() < greedProbability
+                ? new Customer(context.nextCustomerId(), time, true)
+                : new Customer(context.nextCustomerId(), time, false);
+        }
+
+        return events.arrived(guy, time, stats);
+    }
+
+}
@@ -0,0 +1,138 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The binary trace format and its decoder. A trace file is a 16 byte header, 
+ * holding a magic int, the format version and the record count, followed by 
+ * one 18 byte record per traced event: the time as a double, the customer id 
+ * and server id as ints (0 when the event has none), the {@link State} ordinal
+ * and a flag byte for a greedy customer and a self-checkout. Everything is 
+ * little-endian.
+ *
+ * <p>A trace is written by running a simulator with 
+ * {@link EventSimulator#useBinaryTrace}, and decoding it renders the same text 
+ * as the simulator would have printed, without running the simulation again.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class BinaryTrace {
+    static final int MAGIC = 0x43535452;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 18;
+    static final int GREEDY = 1;
+    static final int SELF_CHECK = 2;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    /**Bytes of the file mapped or buffered at once, a whole number of records. */
+    static final int WINDOW_SIZE = RECORD_SIZE << 20;
+
+    private static final State[] STATES = State.values();
+
+    private BinaryTrace() {
+    }
+
+    /**
+     * Receives the records of a binary trace in order.
+     * */
+    interface Visitor {
+
+        /**
+         * Receives one record.
+         *
+         * @param time The event time.
+         * @param state The event state.
+         * @param customer The customer id, 0 for a server event.
+         * @param isGreedy Whether the customer is greedy.
+         * @param server The server id, 0 for an arrival or leave event.
+         * @param isSelfCheck Whether the server is a self-checkout.
+         * */
+        void accept(double time, State state, int customer, boolean isGreedy,
+            int server, boolean isSelfCheck);
+
+    }
+
+    /**
+     * Renders the binary trace in the given file as the text trace.
+     *
+     * @param file The binary trace file.
+     * @param out The stream the text is written to, which is flushed but not closed.
+     * @throws IOException If the file cannot be read or is not a binary trace.
+     * */
+    public static void decode(Path file, OutputStream out) throws IOException {
+        TraceWriter text = new TraceWriter(out);
+        read(file, text::write);
+        text.close();
+    }
+
+    /**
+     * Feeds the records of the binary trace in the given file to the visitor.
+     *
+     * @param file The binary trace file.
+     * @param visitor The receiver of the records.
+     * @return Number of records read.
+     * @throws IOException If the file cannot be read or is not a binary trace.
+     * */
+    static long read(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends.
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a binary trace");
+            }
+            if (header.getInt() != VERSION) {
+                throw new IOException(file + " has an unknown trace version");
+            }
+            long records = header.getLong();
+            if (records < 0 || HEADER_SIZE + records * RECORD_SIZE > channel.size()) {
+                throw new IOException(file + " is truncated");
+            }
+
+            long position = HEADER_SIZE;
+            long left = records;
+            while (left > 0) {
+                int n = (int) Math.min(left, WINDOW_SIZE / RECORD_SIZE);
+                MappedByteBuffer window = 
+                    channel.map(FileChannel.MapMode.READ_ONLY, position, (long) n * RECORD_SIZE);
+                window.order(ORDER);
+                for (int i = 0; i < n; i++) {
+                    double time = window.getDouble();
+                    int customer = window.getInt();
+                    int server = window.getInt();
+                    int state = window.get();
+                    int flags = window.get();
+                    if (state < 0 || state >= STATES.length) {
+                        throw new IOException(file + " has a record of unknown state " + state);
+                    }
+                    visitor.accept(time, STATES[state], customer, (flags & GREEDY) != 0, 
+                        server, (flags & SELF_CHECK) != 0);
+                }
+                position += (long) n * RECORD_SIZE;
+                left -= n;
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Returns the header of a trace of the given number of records, ready to 
+     * be written.
+     * */
+    static ByteBuffer header(long records) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(records);
+        header.flip();
+        return header;
+    }
+
+}
@@ -0,0 +1,102 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the trace of a simulation as fixed-width binary records, in the 
+ * format read by {@link BinaryTrace}. Records are put straight into a direct
+ * buffer, so nothing is formatted on the way, and the buffer is written to 
+ * the file whenever it fills. The file only ever grows by whole records, so
+ * it never has to be cut back, and the record count in the header is 
+ * written on {@link #close()}.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class BinaryTraceWriter implements TraceSink {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    /**Position in the file the buffer is written to next. */
+    private long position;
+    private long records;
+
+    /**
+     * Creates the trace file, replacing any file of that name.
+     *
+     * @param file The trace file.
+     * @throws UncheckedIOException If the file cannot be created.
+     * */
+    BinaryTraceWriter(Path file) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        buffer = ByteBuffer.allocateDirect(BinaryTrace.WINDOW_SIZE).order(BinaryTrace.ORDER);
+        position = BinaryTrace.HEADER_SIZE;
+        records = 0;
+    }
+
+    @Override
+    public void write(Event e) {
+        if (buffer.remaining() < BinaryTrace.RECORD_SIZE) {
+            flush();
+        }
+        Customer c = e.customer;
+        Server s = e.server;
+        int flags = 0;
+        if (c != null && c.isGreedy()) {
+            flags |= BinaryTrace.GREEDY;
+        }
+        if (s != null && s.isSelfCheckOut()) {
+            flags |= BinaryTrace.SELF_CHECK;
+        }
+        buffer.putDouble(e.time)
+            .putInt(c == null ? 0 : c.getId())
+            .putInt(s == null ? 0 : s.id)
+            .put((byte) e.state.ordinal())
+            .put((byte) flags);
+        records++;
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+            write(BinaryTrace.header(records), 0);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Writes out the records in the buffer.
+     * */
+    private void flush() {
+        buffer.flip();
+        position += write(buffer, position);
+        buffer.clear();
+    }
+
+    private long write(ByteBuffer src, long at) {
+        long written = 0;
+        try {
+            while (src.hasRemaining()) {
+                written += channel.write(src, at + written);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return written;
+    }
+
+}
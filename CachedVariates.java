@@ -0,0 +1,119 @@
+package cs2030.simulator;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * The variates of an engine read from a {@link VariateCache} instead of being
+ * generated. The cache holds as many variates of each kind as there are 
+ * customers, which covers every draw of a simulation, and a stream is only 
+ * opened once it is first drawn from. Should a simulation need more, the 
+ * rest of the stream is generated, so the variates are always exactly those
+ * of the engine.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+final class CachedVariates implements VariateSource {
+    private static final Draw[] DRAWS = Draw.values();
+
+    private final VariateCache cache;
+    private final VariateEngine engine;
+    private final int seed;
+    private final double lambda;
+    private final double mu;
+    private final double rho;
+    private final long length;
+    private final Stream[] streams;
+
+    /**
+     * Creates the cached variates of the given engine and seed.
+     *
+     * @param cache The cache.
+     * @param engine Engine of the variates.
+     * @param seed Seed for random generator.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param length Number of variates of each kind to be cached.
+     * */
+    CachedVariates(VariateCache cache, VariateEngine engine, int seed, 
+        double lambda, double mu, double rho, long length) {
+        this.cache = cache;
+        this.engine = engine;
+        this.seed = seed;
+        this.lambda = lambda;
+        this.mu = mu;
+        this.rho = rho;
+        this.length = Math.max(1, length);
+        this.streams = new Stream[DRAWS.length];
+    }
+
+    @Override
+    public double genInterArrivalTime() {
+        return next(Draw.INTER_ARRIVAL);
+    }
+
+    @Override
+    public double genServiceTime() {
+        return next(Draw.SERVICE);
+    }
+
+    @Override
+    public double genRandomRest() {
+        return next(Draw.REST_DECISION);
+    }
+
+    @Override
+    public double genRestPeriod() {
+        return next(Draw.REST_PERIOD);
+    }
+
+    @Override
+    public double genCustomerType() {
+        return next(Draw.CUSTOMER_TYPE);
+    }
+
+    private double next(Draw draw) {
+        Stream s = streams[draw.ordinal()];
+        if (s == null) {
+            s = new Stream(draw, 
+                cache.open(engine, seed, draw, lambda, mu, rho, length));
+            streams[draw.ordinal()] = s;
+        }
+        return s.next();
+    }
+
+    /**
+     * The cached variates of one kind, followed by those generated past the 
+     * end of the cache.
+     * */
+    private final class Stream {
+        private final Draw draw;
+        private final DoubleBuffer[] windows;
+        private int window;
+        private VariateSource rest;
+
+        Stream(Draw draw, DoubleBuffer[] windows) {
+            this.draw = draw;
+            this.windows = windows;
+            this.window = 0;
+        }
+
+        double next() {
+            while (window < windows.length) {
+                if (windows[window].hasRemaining()) {
+                    return windows[window].get();
+                }
+                window++;
+            }
+            if (rest == null) {
+                // Skip the cached part of the stream of a fresh source.
+                rest = engine.create(seed, lambda, mu, rho);
+                for (long i = 0; i < length; i++) {
+                    draw.from(rest);
+                }
+            }
+            return draw.from(rest);
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package cs2030.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compares two scenarios, typically two layouts of the same store, by 
+ * replicating both in parallel and estimating the differences of the average
+ * wait time and the served and not served counts, first minus second.
+ *
+ * <p>With common random numbers the i-th replications of both scenarios see 
+ * the same customers, so their difference holds far less noise than the
+ * difference of independent replications, and the same precision takes far 
+ * fewer replications. The estimates are over the paired differences.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class Comparison {
+    private final Sampling sampling;
+    private final Estimate waitTime;
+    private final Estimate served;
+    private final Estimate notServed;
+
+    private Comparison(Statistics[] first, Statistics[] second, Sampling sampling) {
+        this.sampling = sampling;
+        boolean paired = sampling == Sampling.ANTITHETIC;
+        waitTime = difference(first, second, paired, Statistics::getAverageWaitTime);
+        served = difference(first, second, paired, Statistics::getServed);
+        notServed = difference(first, second, paired, Statistics::getNotServed);
+    }
+
+    /**
+     * Replicates both scenarios n times on the common fork-join pool.
+     *
+     * @param first The first scenario.
+     * @param second The second scenario.
+     * @param n Number of replications, or of antithetic pairs, of each.
+     * @param sampling How the replications draw their random numbers.
+     * @return The estimates of the differences.
+     * */
+    public static Comparison run(Scenario first, Scenario second, int n, Sampling sampling) {
+        return run(first, second, n, sampling, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Replicates both scenarios n times on the given pool, with the seeds of 
+     * the replications of the first scenario. Independent replications of 
+     * the second scenario take the seeds of the next n runs, so that none of
+     * their streams is a stream of the first.
+     *
+     * @param first The first scenario.
+     * @param second The second scenario.
+     * @param n Number of replications, or of antithetic pairs, of each.
+     * @param sampling How the replications draw their random numbers.
+     * @param pool The pool running the replications.
+     * @return The estimates of the differences.
+     * */
+    public static Comparison run(Scenario first, Scenario second, int n, Sampling sampling,
+        ForkJoinPool pool) {
+        Scenario other = second.withSeed(first.getSeed());
+        List<Callable<Statistics>> tasks = new ArrayList<>();
+        Replications.addTasks(tasks, first, n, sampling, 0);
+        int half = tasks.size();
+        Replications.addTasks(tasks, other, n, sampling, 
+            sampling == Sampling.INDEPENDENT ? n : 0);
+        Statistics[] results = Replications.invokeAll(tasks, pool);
+        return new Comparison(Arrays.copyOfRange(results, 0, half), 
+            Arrays.copyOfRange(results, half, results.length), sampling);
+    }
+
+    private static Estimate difference(Statistics[] first, Statistics[] second, boolean paired,
+        ToDoubleFunction<Statistics> quantity) {
+        double[] a = Replications.observe(first, paired, quantity);
+        double[] b = Replications.observe(second, paired, quantity);
+        Estimate e = new Estimate();
+        for (int i = 0; i < a.length; i++) {
+            e.add(a[i] - b[i]);
+        }
+        return e;
+    }
+
+    public Estimate getWaitTime() {
+        return waitTime;
+    }
+
+    public Estimate getServed() {
+        return served;
+    }
+
+    public Estimate getNotServed() {
+        return notServed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("comparison %d %s%nwait      %s%nserved    %s%nnotServed %s",
+            waitTime.getCount(), sampling.name().toLowerCase(Locale.ROOT), 
+            waitTime, served, notServed);
+    }
+}
@@ -0,0 +1,46 @@
+package cs2030.simulator;
+
+/**
+ * The variates of a {@link RandomGenerator}, which reproduce the output of 
+ * every existing seed.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+final class CompatVariates implements VariateSource {
+    private final RandomGenerator rng;
+
+    /**
+     * Creates a source drawing from the given generator.
+     *
+     * @param rng RNG generator for simulating random events.
+     * */
+    CompatVariates(RandomGenerator rng) {
+        this.rng = rng;
+    }
+
+    @Override
+    public double genInterArrivalTime() {
+        return rng.genInterArrivalTime();
+    }
+
+    @Override
+    public double genServiceTime() {
+        return rng.genServiceTime();
+    }
+
+    @Override
+    public double genRandomRest() {
+        return rng.genRandomRest();
+    }
+
+    @Override
+    public double genRestPeriod() {
+        return rng.genRestPeriod();
+    }
+
+    @Override
+    public double genCustomerType() {
+        return rng.genCustomerType();
+    }
+
+}
@@ -1,5 +1,7 @@
 package cs2030.simulator;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A class that implements a simple customer with basic customer information,
  * and it is supported by a set of actions that a customer can implement.
@@ -7,22 +9,63 @@ package cs2030.simulator;
  * @author LeeEnHao_A02046979W
  * */
 public class Customer implements Comparable<Customer> {
-    private static int count = 0;
+    /**Ids of the customers created outside of a simulation, from 1. */
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
     private final int id;
     private final double arrivalTime;
     private final boolean isGreedy;
+    /**Recorded service time of the customer, or NaN if it is to be drawn. */
+    private final double serviceTime;
 
 
     /**
-     * Creates a customer at the specified time of arrival. 
+     * Creates a customer at the specified time of arrival, numbered after 
+     * every customer created this way so far. A simulation numbers its own 
+     * customers instead.
      *
      * @param arrivalTime Arriving time of the customer.
+     * @param isGreedy Specifies if the customer is greedy.
      * */
     public Customer(double arrivalTime, boolean isGreedy) {
-        count++;
-        this.id = count;
+        this(COUNT.incrementAndGet(), arrivalTime, isGreedy);
+    }
+
+    /**
+     * Creates a customer at the specified time of arrival. 
+     *
+     * @param id Id of the customer, unique within its simulation.
+     * @param arrivalTime Arriving time of the customer.
+     * @param isGreedy Specifies if the customer is greedy.
+     * */
+    public Customer(int id, double arrivalTime, boolean isGreedy) {
+        this(id, arrivalTime, isGreedy, Double.NaN);
+    }
+
+    /**
+     * Creates a customer at the specified time of arrival, who takes the
+     * given time to be served.
+     *
+     * @param id Id of the customer, unique within its simulation.
+     * @param arrivalTime Arriving time of the customer.
+     * @param isGreedy Specifies if the customer is greedy.
+     * @param serviceTime Service time of the customer, or NaN if it is to be drawn
+     *     by the server.
+     * */
+    public Customer(int id, double arrivalTime, boolean isGreedy, double serviceTime) {
+        this.id = id;
         this.arrivalTime = arrivalTime;
         this.isGreedy = isGreedy;
+        this.serviceTime = serviceTime;
+    }
+
+    /**
+     * Returns the id of the customer.
+     *
+     * @return Customer id.
+     * */
+    int getId() {
+        return id;
     }
 
     /**
@@ -43,6 +86,24 @@ public class Customer implements Comparable<Customer> {
         return serveTime - arrivalTime;
     }
 
+    /**
+     * Checks if the customer brings a recorded service time.
+     *
+     * @return true if the service time is known.
+     * */
+    boolean hasServiceTime() {
+        return !Double.isNaN(serviceTime);
+    }
+
+    /**
+     * Returns the recorded service time of the customer.
+     *
+     * @return Service time, NaN if there is none.
+     * */
+    double getServiceTime() {
+        return serviceTime;
+    }
+
     /**
      * Checks if the customer is a greedy customer.
      * 
@@ -0,0 +1,75 @@
+package cs2030.simulator;
+
+/**
+ * A bounded first-in-first-out queue of customers on a preallocated ring 
+ * buffer. Enqueueing and dequeueing never allocate.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class CustomerQueue {
+    private final Customer[] items;
+    /**Position of the first-in-line customer. */
+    private int head;
+    private int size;
+
+    /**
+     * Creates an empty queue holding at most the given number of customers.
+     *
+     * @param capacity Maximum length of the queue.
+     * */
+    CustomerQueue(int capacity) {
+        items = new Customer[capacity];
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Adds a customer to the back of the queue.
+     *
+     * @param customer Customer to be enqueued.
+     * */
+    void add(Customer customer) {
+        assert !isFull();
+        int tail = head + size;
+        items[tail < items.length ? tail : tail - items.length] = customer;
+        size++;
+    }
+
+    /**
+     * Removes the first-in-line customer.
+     *
+     * @return The removed customer, null if the queue is empty.
+     * */
+    Customer poll() {
+        if (size == 0) {
+            return null;
+        }
+        Customer c = items[head];
+        items[head] = null;
+        head = head + 1 == items.length ? 0 : head + 1;
+        size--;
+        return c;
+    }
+
+    /**
+     * Returns the first-in-line customer without removing it.
+     *
+     * @return The first-in-line customer, null if the queue is empty.
+     * */
+    Customer peek() {
+        return size == 0 ? null : items[head];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean isFull() {
+        return size == items.length;
+    }
+
+}
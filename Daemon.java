@@ -0,0 +1,88 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A long-lived simulation server. It reads scenarios line by line and
+ * answers every line with the statistics line of the scenario, or with 
+ * "error" and a reason for a line that is not a scenario. Running many 
+ * scenarios in one process keeps the JIT warm, which is most of the cost 
+ * of a small scenario run in a fresh JVM.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public class Daemon {
+
+    private Daemon() {
+    }
+
+    /**
+     * Answers every scenario read from the channel until it ends.
+     *
+     * @param in The channel the scenario lines are read from.
+     * @param out The stream the result lines are written to.
+     * @throws IOException if the channel cannot be read.
+     * */
+    public static void serve(ReadableByteChannel in, OutputStream out) throws IOException {
+        ScenarioReader reader = new ScenarioReader(in);
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+        while (true) {
+            String result;
+            try {
+                Scenario scenario = reader.next();
+                if (scenario == null) {
+                    break;
+                }
+                EventSimulator es = scenario.launch(TraceLevel.none());
+                es.run();
+                result = es.getStatistics().toString();
+            } catch (IllegalArgumentException e) {
+                result = "error " + e.getMessage();
+            } catch (RuntimeException e) {
+                // Any other failure of one scenario must not end the daemon.
+                result = "error " + e;
+            }
+            writer.write(result);
+            writer.write(System.lineSeparator());
+            writer.flush();
+        }
+    }
+
+    /**
+     * Accepts connections on a port of the loopback address and answers
+     * the scenarios of every connection on its own thread. Never returns 
+     * unless the port cannot be bound.
+     *
+     * @param port The port to listen on.
+     * @throws IOException if the port cannot be bound.
+     * */
+    public static void listen(int port) throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            while (true) {
+                SocketChannel client = server.accept();
+                new Thread(() -> answer(client), "daemon-" + client.socket().getPort()).start();
+            }
+        }
+    }
+
+    private static void answer(SocketChannel client) {
+        try (SocketChannel ch = client) {
+            serve(ch, Channels.newOutputStream(ch));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package cs2030.simulator;
+
+import java.util.Arrays;
+
+/**
+ * One department of a store simulated by {@link Departments}: a simulation 
+ * of its own servers and arrivals, which sends every customer leaving it 
+ * unserved on to the next department, where the customer arrives after the
+ * transfer delay. A customer turned away by every department leaves the 
+ * store. Customers come in from the department before through a 
+ * single-producer single-consumer queue, so each department can be run on 
+ * its own thread.
+ *
+ * <p>The k-th customer received is given the id total + k, after the ids of
+ * the customers of the department's own arrivals. The customers are sent in
+ * the order they leave, so the ids do not depend on how the runs of the 
+ * departments are interleaved.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+final class Department {
+    private final EventSimulator simulator;
+    /**Number of the department's own arrivals. */
+    private final int total;
+    /**Number of departments of the store, the most a customer can try. */
+    private final int departments;
+    private final double transferDelay;
+    private final SpscQueue<Transfer> inbox;
+    private Department next;
+
+    /**Departments tried by each customer received, before this one, by id - total - 1. */
+    private int[] tried;
+    private int received;
+    private int transferred;
+    private int lost;
+
+    /**
+     * Creates a department running the given scenario.
+     *
+     * @param scenario The servers and arrivals of the department.
+     * @param departments Number of departments of the store.
+     * @param transferDelay Time a customer takes to reach the next department.
+     * */
+    Department(Scenario scenario, int departments, double transferDelay) {
+        this.simulator = scenario.launch(TraceLevel.none()).onLeave(this::left);
+        this.total = scenario.getTotal();
+        this.departments = departments;
+        this.transferDelay = transferDelay;
+        this.inbox = new SpscQueue<>();
+        this.tried = new int[16];
+    }
+
+    /**
+     * Sets the department the customers turned away are sent to.
+     * */
+    void sendTo(Department department) {
+        this.next = department;
+    }
+
+    void start() {
+        simulator.start();
+    }
+
+    void finish() {
+        simulator.finish();
+    }
+
+    /**
+     * Schedules the arrivals of the customers sent to this department so far.
+     * Only called by the thread running this department.
+     * */
+    void receive() {
+        for (Transfer t = inbox.poll(); t != null; t = inbox.poll()) {
+            if (received == tried.length) {
+                tried = Arrays.copyOf(tried, received * 2);
+            }
+            tried[received++] = t.tried;
+            simulator.arrive(new Customer(total + received, t.time, t.isGreedy), t.time);
+        }
+    }
+
+    /**
+     * Handles every event before the given time, sending the customers 
+     * turned away on to the next department.
+     *
+     * @param end End of the time window, exclusive.
+     * */
+    void runUntil(double end) {
+        while (simulator.nextEventTime() < end) {
+            simulator.step();
+        }
+    }
+
+    /**
+     * Handles the next event.
+     * */
+    void step() {
+        simulator.step();
+    }
+
+    /**
+     * Returns the time of the next event, or infinity if there is none. 
+     * Customers sent but not yet received are not counted.
+     * */
+    double nextEventTime() {
+        return simulator.nextEventTime();
+    }
+
+    private void left(Customer c, double time) {
+        int id = c.getId();
+        int count = (id > total ? tried[id - total - 1] : 0) + 1;
+        if (count < departments) {
+            transferred++;
+            next.inbox.offer(new Transfer(time + transferDelay, c.isGreedy(), count));
+        } else {
+            lost++;
+        }
+    }
+
+    Statistics getStatistics() {
+        return simulator.getStatistics();
+    }
+
+    int getTransferred() {
+        return transferred;
+    }
+
+    int getLost() {
+        return lost;
+    }
+
+    /**
+     * A customer on the way to the next department.
+     * */
+    private static final class Transfer {
+        /**Time of arrival at the next department. */
+        private final double time;
+        private final boolean isGreedy;
+        /**Number of departments tried. */
+        private final int tried;
+
+        Transfer(double time, boolean isGreedy, int tried) {
+            this.time = time;
+            this.isGreedy = isGreedy;
+            this.tried = tried;
+        }
+    }
+}
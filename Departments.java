@@ -0,0 +1,263 @@
+package cs2030.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+
+/**
+ * Simulates a store split into departments, each with its own servers and 
+ * arrivals, in parallel. A customer turned away by a department, leaving 
+ * unserved, walks over to the next department, the last sending them back 
+ * to the first, and arrives there after the transfer delay. A customer 
+ * turned away by every department leaves the store.
+ *
+ * <p>The departments are run on their own threads, each with its own event
+ * list, in conservative time windows. A window starts at the earliest event 
+ * of any department and is as long as the transfer delay, so a customer 
+ * sent on during a window arrives in a later one: every department can 
+ * handle all of its events of the window without hearing from the others. 
+ * At the end of a window the threads meet at a barrier, take in the 
+ * customers sent to them through lock-free single-producer single-consumer
+ * queues, and agree on the next window.
+ *
+ * <p>{@link #runSequential} instead handles the earliest event of all 
+ * departments one at a time on the calling thread, as a single simulation 
+ * of the store would, and gives exactly the same results.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class Departments {
+    private final List<Department> departments;
+    private final Statistics stats;
+    private final int lost;
+
+    private Departments(List<Department> departments) {
+        this.departments = departments;
+        stats = new Statistics();
+        int left = 0;
+        for (Department d : departments) {
+            stats.merge(d.getStatistics());
+            left += d.getLost();
+        }
+        lost = left;
+    }
+
+    private static List<Department> create(List<Scenario> scenarios, double transferDelay) {
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("A store needs at least one department");
+        }
+        if (!(transferDelay > 0)) {
+            throw new IllegalArgumentException("Transfer delay must be positive: " + transferDelay);
+        }
+        List<Department> departments = new ArrayList<>();
+        for (Scenario s : scenarios) {
+            departments.add(new Department(s, scenarios.size(), transferDelay));
+        }
+        for (int i = 0; i < departments.size(); i++) {
+            departments.get(i).sendTo(departments.get((i + 1) % departments.size()));
+        }
+        return departments;
+    }
+
+    /**
+     * Runs the departments of the store on the given number of threads, 
+     * each thread running an equal share of the departments.
+     *
+     * @param scenarios The servers and arrivals of each department.
+     * @param transferDelay Time a customer takes to reach the next department.
+     * @param threads Number of threads.
+     * @return The results of the departments.
+     * @throws IllegalArgumentException if there is no department or the 
+     *     transfer delay is not positive.
+     * */
+    public static Departments run(List<Scenario> scenarios, double transferDelay, int threads) {
+        List<Department> departments = create(scenarios, transferDelay);
+        int count = Math.max(1, Math.min(threads, departments.size()));
+        new Windows(departments, transferDelay, count).run();
+        return new Departments(departments);
+    }
+
+    /**
+     * Runs the departments of the store on the calling thread, handling the 
+     * earliest event of all departments one at a time.
+     *
+     * @param scenarios The servers and arrivals of each department.
+     * @param transferDelay Time a customer takes to reach the next department.
+     * @return The results of the departments.
+     * @throws IllegalArgumentException if there is no department or the 
+     *     transfer delay is not positive.
+     * */
+    public static Departments runSequential(List<Scenario> scenarios, double transferDelay) {
+        List<Department> departments = create(scenarios, transferDelay);
+        for (Department d : departments) {
+            d.start();
+        }
+        while (true) {
+            // Every customer sent has been received, so the earliest event is known.
+            Department earliest = null;
+            for (Department d : departments) {
+                if (earliest == null || d.nextEventTime() < earliest.nextEventTime()) {
+                    earliest = d;
+                }
+            }
+            if (earliest.nextEventTime() == Double.POSITIVE_INFINITY) {
+                break;
+            }
+            earliest.step();
+            for (Department d : departments) {
+                d.receive();
+            }
+        }
+        for (Department d : departments) {
+            d.finish();
+        }
+        return new Departments(departments);
+    }
+
+    /**
+     * Returns the statistics of the given department.
+     *
+     * @param department Index of the department, from 0.
+     * @return The statistics.
+     * */
+    public Statistics getStatistics(int department) {
+        return departments.get(department).getStatistics();
+    }
+
+    /**
+     * Returns the statistics of all departments merged together. A customer
+     * is counted as not served by every department that turned them away.
+     *
+     * @return The merged statistics.
+     * */
+    public Statistics getStatistics() {
+        return stats;
+    }
+
+    /**
+     * Returns the number of customers turned away by every department.
+     *
+     * @return The customers lost by the store.
+     * */
+    public int getLost() {
+        return lost;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < departments.size(); i++) {
+            Department d = departments.get(i);
+            sb.append(String.format("department %d %s transferred %d%n", 
+                i + 1, d.getStatistics(), d.getTransferred()));
+        }
+        sb.append(String.format("store [%.3f %d %d]", 
+            stats.getAverageWaitTime(), stats.getServed(), lost));
+        return sb.toString();
+    }
+
+    /**
+     * Runs the departments in time windows on a number of threads.
+     * */
+    private static final class Windows {
+        private final List<Department> departments;
+        private final double transferDelay;
+        private final int threads;
+        /**Earliest event of the departments of each thread. */
+        private final double[] earliest;
+        /**The barrier of the threads, terminated as soon as one of them fails. */
+        private final Phaser barrier;
+        /**End of the current window, set by the barrier. */
+        private double end;
+        private volatile Throwable failure;
+
+        Windows(List<Department> departments, double transferDelay, int threads) {
+            this.departments = departments;
+            this.transferDelay = transferDelay;
+            this.threads = threads;
+            this.earliest = new double[threads];
+            this.barrier = new Phaser(threads) {
+                @Override
+                protected boolean onAdvance(int phase, int parties) {
+                    nextWindow();
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * Starts the window at the earliest event of any department.
+         * Called by the last thread to reach the barrier.
+         * */
+        private void nextWindow() {
+            double start = Double.POSITIVE_INFINITY;
+            for (double t : earliest) {
+                start = Math.min(start, t);
+            }
+            end = start + transferDelay;
+        }
+
+        void run() {
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = departments.size() * t / threads;
+                int to = departments.size() * (t + 1) / threads;
+                int worker = t;
+                Thread thread = new Thread(() -> work(worker, departments.subList(from, to)),
+                    "department-worker-" + t);
+                workers.add(thread);
+                thread.start();
+            }
+            try {
+                for (Thread thread : workers) {
+                    thread.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // The workers stop at their next meeting.
+                barrier.forceTermination();
+                throw new IllegalStateException("Interrupted while simulating", e);
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Department failed", failure);
+            }
+        }
+
+        private void work(int worker, List<Department> mine) {
+            try {
+                for (Department d : mine) {
+                    d.start();
+                }
+                while (true) {
+                    double first = Double.POSITIVE_INFINITY;
+                    for (Department d : mine) {
+                        d.receive();
+                        first = Math.min(first, d.nextEventTime());
+                    }
+                    earliest[worker] = first;
+                    if (barrier.arriveAndAwaitAdvance() < 0) {
+                        // Another thread failed.
+                        return;
+                    }
+                    if (end == Double.POSITIVE_INFINITY) {
+                        break;
+                    }
+                    for (Department d : mine) {
+                        d.runUntil(end);
+                    }
+                    // Wait for every customer sent during the window.
+                    if (barrier.arriveAndAwaitAdvance() < 0) {
+                        return;
+                    }
+                }
+                for (Department d : mine) {
+                    d.finish();
+                }
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                // Releases the threads waiting now and every later wait.
+                barrier.forceTermination();
+            }
+        }
+    }
+}
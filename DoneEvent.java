@@ -16,7 +16,7 @@ public class DoneEvent extends Event {
      * */
     public DoneEvent(Customer customer, double time, Server server, Statistics stats) {
         super(customer, State.DONE, time, server);
-        stats.served();
+        stats.served(customer);
     }
 
     @Override
@@ -0,0 +1,54 @@
+package cs2030.simulator;
+
+/**
+ * The kinds of random draws of a simulation, one per stream of a 
+ * {@link VariateSource}.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+enum Draw {
+
+    INTER_ARRIVAL {
+        @Override
+        double from(VariateSource source) {
+            return source.genInterArrivalTime();
+        }
+    },
+
+    SERVICE {
+        @Override
+        double from(VariateSource source) {
+            return source.genServiceTime();
+        }
+    },
+
+    REST_DECISION {
+        @Override
+        double from(VariateSource source) {
+            return source.genRandomRest();
+        }
+    },
+
+    REST_PERIOD {
+        @Override
+        double from(VariateSource source) {
+            return source.genRestPeriod();
+        }
+    },
+
+    CUSTOMER_TYPE {
+        @Override
+        double from(VariateSource source) {
+            return source.genCustomerType();
+        }
+    };
+
+    /**
+     * Draws the next variate of this kind from the source.
+     *
+     * @param source Source of the variates.
+     * @return The variate.
+     * */
+    abstract double from(VariateSource source);
+
+}
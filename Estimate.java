@@ -0,0 +1,90 @@
+package cs2030.simulator;
+
+/**
+ * A running estimate of the mean of a quantity from independent observations,
+ * with its sample variance and 95% confidence interval.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public class Estimate {
+    /**Two-sided 95% Student t quantiles for 1 to 30 degrees of freedom. */
+    private static final double[] T_975 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042,
+    };
+    private static final double Z_975 = 1.959964;
+
+    private long count;
+    private double mean;
+    /**Sum of squared deviations from the mean. */
+    private double m2;
+
+    /**
+     * Creates an estimate without observations.
+     * */
+    public Estimate() {
+        count = 0;
+        mean = 0.000;
+        m2 = 0.000;
+    }
+
+    /**
+     * Adds an observation.
+     *
+     * @param x The observed value.
+     * */
+    public void add(double x) {
+        count++;
+        double delta = x - mean;
+        mean += delta / count;
+        m2 += delta * (x - mean);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the sample variance of the observations.
+     *
+     * @return The variance, 0 with fewer than two observations.
+     * */
+    public double getVariance() {
+        return count < 2 ? 0.000 : m2 / (count - 1);
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval of the mean.
+     *
+     * @return The half width, infinite with fewer than two observations.
+     * */
+    public double getHalfWidth() {
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return quantile(count - 1) * Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * Returns the 97.5% quantile of the t distribution, using the first order 
+     * Cornish-Fisher expansion beyond the table.
+     * */
+    static double quantile(long df) {
+        if (df <= T_975.length) {
+            return T_975[(int) df - 1];
+        } else {
+            double z = Z_975;
+            return z + (z * z * z + z) / (4 * df);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f +- %.3f (var %.3f)", mean, getHalfWidth(), getVariance());
+    }
+}
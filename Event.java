@@ -1,19 +1,30 @@
 package cs2030.simulator;
 
-import java.util.Optional;
-
 /**
  * A base class implementation of events.
  * An event schedules the corresponding what actions, a server
  * and customer associated with the evetn takes.
+ * Server events have no customer and arrival and leave events have no server.
+ * The fields are only reassigned when a pooled event is reused.
  *
  * @author LeeEnHao_A0204679W
  * */
 abstract class Event implements Comparable<Event> {
-    final double time;
-    final State state;
-    final Optional<Customer> customer;
-    final Optional<Server> server;
+    /**Rank of server events, which come before customer events at the same time. */
+    static final long SERVER_RANK = 0L;
+    /**Rank of customer events. */
+    static final long CUSTOMER_RANK = 1L;
+
+    double time;
+    State state;
+    Customer customer;
+    Server server;
+    /**
+     * Ordering key among events at the same time. The upper 32 bits hold the 
+     * rank of the event class and the lower 32 bits the server id for server 
+     * events or the customer id for customer events.
+     */
+    long key;
 
     /**
      * Constructor for an event.
@@ -25,16 +36,44 @@ abstract class Event implements Comparable<Event> {
      * */
     protected Event(Customer customer, State state, double eventTime, Server server) {
         // Can be done using factory methods but nvm.
+        init(customer, state, eventTime, server);
+    }
+
+    /**
+     * Assigns the fields of this event.
+     *
+     * @param customer The event customer, null for a server event.
+     * @param state The event state.
+     * @param eventTime The event time.
+     * @param server The event server, null for an arrival or leave event.
+     * */
+    final void init(Customer customer, State state, double eventTime, Server server) {
         this.time = eventTime;
-        this.customer = Optional.ofNullable(customer);
+        this.customer = customer;
         this.state = state;
-        this.server = Optional.ofNullable(server);
+        this.server = server;
+        this.key = state == State.SERVER_REST || state == State.SERVER_BACK
+            ? SERVER_RANK << 32 | server.id
+            : CUSTOMER_RANK << 32 | customer.getId();
     }
 
     abstract boolean isServerEvent();
 
+    /**
+     * Checks if the other event is at the same time and of the same rank as 
+     * this one, so that only the ids in their keys order them.
+     *
+     * @param other The other event.
+     * @return True if both are at the same time and rank.
+     * */
+    final boolean isSameBatch(Event other) {
+        return time == other.time && (key >>> 32) == (other.key >>> 32);
+    }
+
     /**
      * Allows events to be compared to one another by order of time.
+     * Events at the same time are ordered by their key, so server events come 
+     * first by server id, followed by customer events by customer id.
      *
      * @param other The other event being compared to.
      * */
@@ -42,48 +81,39 @@ abstract class Event implements Comparable<Event> {
     public int compareTo(Event other) {
         if (this.time != other.time) {
             return Double.compare(this.time, other.time);
-        } else if (this.isServerEvent() && other.isServerEvent()) {
-            // Compare server id if both are same timings.
-            return Integer.compare(this.server.get().id, this.server.get().id);
-        } else if (this.isServerEvent() && !other.isServerEvent()) {
-            // Server event should come before customer event?
-            return -1;
-        } else if (!this.isServerEvent() && other.isServerEvent()) {
-            return 1;
         } else {
-            // Customer events with same timing, compare the customers.
-            return this.customer.get().compareTo(other.customer.get());
+            return Long.compare(this.key, other.key);
         }
     }
 
     @Override
     public String toString() {
         if (this.state == State.LEFT) {
-            return String.format("%.3f %s leaves", time, customer.get().toString());
+            return String.format("%.3f %s leaves", time, customer.toString());
         } else if (this.state == State.ARRIVED) {
-            return String.format("%.3f %s arrives", time, customer.get().toString());
+            return String.format("%.3f %s arrives", time, customer.toString());
         } else if (this.state == State.DONE) {
-            return this.server.get().isSelfCheckOut() 
+            return this.server.isSelfCheckOut() 
                 ? String.format("%.3f %s done serving by self-check %d",
-                    time, customer.get().toString(), server.get().id)
+                    time, customer.toString(), server.id)
                 : String.format("%.3f %s done serving by server %d", 
-                    time, customer.get().toString(), server.get().id);
+                    time, customer.toString(), server.id);
         } else if (this.state == State.WAITING) {
-            return this.server.get().isSelfCheckOut() 
+            return this.server.isSelfCheckOut() 
                 ? String.format("%.3f %s waits to be served by self-check %d", 
-                    time, customer.get().toString(), server.get().id)
+                    time, customer.toString(), server.id)
                 : String.format("%.3f %s waits to be served by server %d", 
-                    time, customer.get().toString(), server.get().id);
+                    time, customer.toString(), server.id);
         } else if (this.state == State.SERVED) {
-            return this.server.get().isSelfCheckOut() 
+            return this.server.isSelfCheckOut() 
                 ? String.format("%.3f %s served by self-check %d", 
-                    time, customer.get().toString(), server.get().id)
+                    time, customer.toString(), server.id)
                 : String.format("%.3f %s served by server %d", 
-                    time, customer.get().toString(), server.get().id);
+                    time, customer.toString(), server.id);
         } else if (this.state == State.SERVER_REST) {
-            return String.format("----------%.3f server %d shutdown------", time, server.get().id);
+            return String.format("----------%.3f server %d shutdown------", time, server.id);
         } else {
-            return String.format("----------%.3f server %d online--------", time, server.get().id);
+            return String.format("----------%.3f server %d online--------", time, server.id);
         }
     }
 }
@@ -0,0 +1,51 @@
+package cs2030.simulator;
+
+/**
+ * An event factory that allocates a new event of the matching class for every
+ * event. Events are never reused, so they may be retained by the caller.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class EventAllocator implements EventFactory {
+
+    @Override
+    public Event arrived(Customer customer, double time, Statistics stats) {
+        return new ArrivalEvent(customer, time, stats);
+    }
+
+    @Override
+    public Event served(Customer customer, double time, Server server, Statistics stats) {
+        return new ServeEvent(customer, time, server, stats);
+    }
+
+    @Override
+    public Event waiting(Customer customer, double time, Server server, Statistics stats) {
+        return new WaitEvent(customer, time, server, stats);
+    }
+
+    @Override
+    public Event left(Customer customer, double time, Statistics stats) {
+        return new LeaveEvent(customer, time, stats);
+    }
+
+    @Override
+    public Event done(Customer customer, double time, Server server, Statistics stats) {
+        return new DoneEvent(customer, time, server, stats);
+    }
+
+    @Override
+    public Event serverRest(Server server, double time) {
+        return ServerEvent.rest(server, time);
+    }
+
+    @Override
+    public Event serverBack(Server server, double time) {
+        return ServerEvent.back(server, time);
+    }
+
+    @Override
+    public void release(Event e) {
+        // Allocated events are left to the garbage collector.
+    }
+
+}
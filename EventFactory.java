@@ -0,0 +1,55 @@
+package cs2030.simulator;
+
+/**
+ * Creates the events scheduled by the simulator, one method per event state.
+ * Creating an event updates the statistics in the same way as the constructors
+ * of the event classes do.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+interface EventFactory {
+
+    /**
+     * Creates the arrival event of a customer.
+     * */
+    public Event arrived(Customer customer, double time, Statistics stats);
+
+    /**
+     * Creates the event of a customer being served, recording the wait time.
+     * */
+    public Event served(Customer customer, double time, Server server, Statistics stats);
+
+    /**
+     * Creates the event of a customer joining the queue of a server.
+     * */
+    public Event waiting(Customer customer, double time, Server server, Statistics stats);
+
+    /**
+     * Creates the event of a customer leaving unserved, counting it as not served.
+     * */
+    public Event left(Customer customer, double time, Statistics stats);
+
+    /**
+     * Creates the event of a server done serving a customer, counting it as served.
+     * */
+    public Event done(Customer customer, double time, Server server, Statistics stats);
+
+    /**
+     * Creates the event of a server going to rest.
+     * */
+    public Event serverRest(Server server, double time);
+
+    /**
+     * Creates the event of a server coming back from rest.
+     * */
+    public Event serverBack(Server server, double time);
+
+    /**
+     * Hands back an event that has been handled and is no longer referenced,
+     * so that it may be reused by a later call.
+     *
+     * @param e The handled event.
+     * */
+    public void release(Event e);
+
+}
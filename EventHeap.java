@@ -0,0 +1,143 @@
+package cs2030.simulator;
+
+import java.util.Arrays;
+
+/**
+ * A future event list implemented as a 4-ary min-heap over parallel primitive
+ * arrays. The time and precomputed key of every event are copied into the 
+ * arrays when the event is scheduled, so sifting only compares primitives
+ * and never calls back into the events.
+ *
+ * <p>The ordering is the one of {@link Event#compareTo}: by time, then by key.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class EventHeap implements FutureEventList {
+    private static final int ARITY = 4;
+
+    private double[] times;
+    private long[] keys;
+    private Event[] events;
+    private int size;
+
+    /**
+     * Creates an empty event heap.
+     * */
+    EventHeap() {
+        this(64);
+    }
+
+    /**
+     * Creates an empty event heap with room for the given number of events.
+     *
+     * @param initialCapacity Number of events the heap holds before growing.
+     * */
+    EventHeap(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, ARITY);
+        times = new double[capacity];
+        keys = new long[capacity];
+        events = new Event[capacity];
+        size = 0;
+    }
+
+    @Override
+    public void add(Event e) {
+        if (size == events.length) {
+            grow();
+        }
+        siftUp(size++, e.time, e.key, e);
+    }
+
+    @Override
+    public Event poll() {
+        if (size == 0) {
+            return null;
+        }
+        Event top = events[0];
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, times[last], keys[last], events[last]);
+        }
+        events[last] = null;
+        return top;
+    }
+
+    @Override
+    public Event peek() {
+        return size == 0 ? null : events[0];
+    }
+
+    @Override
+    public boolean isBeforeAll(Event e) {
+        return size == 0 || before(e.time, e.key, times[0], keys[0]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves the hole at index k up until the given key fits, then fills it.
+     * */
+    private void siftUp(int k, double time, long key, Event e) {
+        while (k > 0) {
+            int parent = (k - 1) / ARITY;
+            if (!before(time, key, times[parent], keys[parent])) {
+                break;
+            }
+            move(parent, k);
+            k = parent;
+        }
+        set(k, time, key, e);
+    }
+
+    /**
+     * Moves the hole at index k down until the given key fits, then fills it.
+     * */
+    private void siftDown(int k, double time, long key, Event e) {
+        while (true) {
+            int first = k * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int end = Math.min(first + ARITY, size);
+            int child = first;
+            for (int c = first + 1; c < end; c++) {
+                if (before(times[c], keys[c], times[child], keys[child])) {
+                    child = c;
+                }
+            }
+            if (!before(times[child], keys[child], time, key)) {
+                break;
+            }
+            move(child, k);
+            k = child;
+        }
+        set(k, time, key, e);
+    }
+
+    private static boolean before(double t1, long k1, double t2, long k2) {
+        return t1 != t2 ? t1 < t2 : k1 < k2;
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        keys[to] = keys[from];
+        events[to] = events[from];
+    }
+
+    private void set(int k, double time, long key, Event e) {
+        times[k] = time;
+        keys[k] = key;
+        events[k] = e;
+    }
+
+    private void grow() {
+        int capacity = events.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        events = Arrays.copyOf(events, capacity);
+    }
+
+}
@@ -0,0 +1,105 @@
+package cs2030.simulator;
+
+import java.util.Arrays;
+
+/**
+ * An event factory that recycles released events, so that a simulation in 
+ * steady state allocates no events at all. The pool grows to the largest number 
+ * of events alive at once, which is bounded by the number of servers.
+ *
+ * <p>A released event must not be referenced any more, as it is reinitialised
+ * by a later call.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class EventPool implements EventFactory {
+    private Event[] free;
+    private int size;
+
+    /**
+     * Creates an empty pool.
+     * */
+    EventPool() {
+        free = new Event[16];
+        size = 0;
+    }
+
+    @Override
+    public Event arrived(Customer customer, double time, Statistics stats) {
+        return obtain(customer, State.ARRIVED, time, null);
+    }
+
+    @Override
+    public Event served(Customer customer, double time, Server server, Statistics stats) {
+        stats.increaseTime(customer.checkWaitTime(time));
+        return obtain(customer, State.SERVED, time, server);
+    }
+
+    @Override
+    public Event waiting(Customer customer, double time, Server server, Statistics stats) {
+        return obtain(customer, State.WAITING, time, server);
+    }
+
+    @Override
+    public Event left(Customer customer, double time, Statistics stats) {
+        stats.notServed(customer);
+        return obtain(customer, State.LEFT, time, null);
+    }
+
+    @Override
+    public Event done(Customer customer, double time, Server server, Statistics stats) {
+        stats.served(customer);
+        return obtain(customer, State.DONE, time, server);
+    }
+
+    @Override
+    public Event serverRest(Server server, double time) {
+        return obtain(null, State.SERVER_REST, time, server);
+    }
+
+    @Override
+    public Event serverBack(Server server, double time) {
+        return obtain(null, State.SERVER_BACK, time, server);
+    }
+
+    @Override
+    public void release(Event e) {
+        if (e instanceof PooledEvent) {
+            // Drop the references so that finished customers can be collected.
+            e.customer = null;
+            e.server = null;
+            if (size == free.length) {
+                free = Arrays.copyOf(free, size * 2);
+            }
+            free[size++] = e;
+        }
+    }
+
+    private Event obtain(Customer customer, State state, double time, Server server) {
+        if (size == 0) {
+            return new PooledEvent(customer, state, time, server);
+        } else {
+            Event e = free[--size];
+            free[size] = null;
+            e.init(customer, state, time, server);
+            return e;
+        }
+    }
+
+    /**
+     * An event whose kind is decided by its state, so it can be reused for any state.
+     * */
+    private static final class PooledEvent extends Event {
+
+        PooledEvent(Customer customer, State state, double time, Server server) {
+            super(customer, state, time, server);
+        }
+
+        @Override
+        public boolean isServerEvent() {
+            return state == State.SERVER_REST || state == State.SERVER_BACK;
+        }
+
+    }
+
+}
@@ -1,9 +1,8 @@
 package cs2030.simulator;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.List;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.ObjDoubleConsumer;
 
 /**
  * Class to simulate the discrete event.
@@ -11,33 +10,55 @@ import java.util.ArrayList;
  * @author LeeEnHao_A0204679W
  * */
 public class EventSimulator {
-    /**A priority queue which logs all events.*/
-    private final Queue<Event> log;
+    /**A future event list which logs all events.*/
+    private FutureEventList log;
     /**Event statistics tracker.*/
     private final Statistics stats;
     /**Logic implementation for events.*/
     private final Servlet controller;
-    private final List<Double> arrivals;
-    /**Total number of customers. */
-    private final int totalArrivals;
-    private final RandomGenerator rng;
-    private final double gP;
-
-
-    private EventSimulator(int seed, int num, int nSelf, int qMax, int total, 
-        double lambda, double mu, double rho, double restProb, double greedP) {
-        totalArrivals = total;
-        this.log = new PriorityQueue<>();
-        stats = new Statistics();
-        rng = new RandomGenerator(seed, lambda, mu, rho);
-        controller = new Servlet(num, nSelf, qMax, rng, restProb);
-        arrivals = new ArrayList<>();
-        double timestamp = 0.000;
-        gP = greedP;
-        for (int i = 0; i < totalArrivals; i++) {
-            arrivals.add(timestamp);
-            timestamp += rng.genInterArrivalTime();
-        }
+    /**Recycles the handled events.*/
+    private final EventPool events;
+    /**State shared by the parts of this simulation.*/
+    private final SimulationContext context;
+    /**Source of the arrivals, generated as the simulation progresses. */
+    private ArrivalSource arrivals;
+    /**Total number of customers.*/
+    private final int total;
+    /**Probability of a greedy customer.*/
+    private final double greedProbability;
+    /**Events written to the trace.*/
+    private final TraceLevel traceLevel;
+    /**File of the binary trace, or null to print the trace as text.*/
+    private Path binaryTrace;
+    /**Whether a following event that comes first is handled without being scheduled.*/
+    private boolean fusesEvents;
+    /**Whether the events at the same time and rank are polled at once.*/
+    private boolean batchesEvents;
+    /**Events polled at once, in order.*/
+    private Event[] batch;
+    /**Trace of the run, or null if nothing is traced.*/
+    private TraceSink trace;
+    /**Trace given by the caller, which is left open, or null.*/
+    private TraceSink externalTrace;
+    /**Number of customer events so far, for sampling the trace.*/
+    private long customerEvents;
+    /**The scheduled arrival of the arrival source, or null.*/
+    private Event nextArrival;
+    /**Told of every customer who leaves unserved, or null.*/
+    private ObjDoubleConsumer<Customer> leaves;
+
+
+    private EventSimulator(int num, int nSelf, int qMax, int total, 
+        double restProb, double greedP, TraceLevel traceLevel, VariateSource variates) {
+        this.log = new EventHeap();
+        context = new SimulationContext(variates);
+        stats = context.getStatistics();
+        events = new EventPool();
+        controller = new Servlet(num, nSelf, qMax, context, restProb, events);
+        arrivals = new ArrivalStream(context, total, greedP, events);
+        this.total = total;
+        this.greedProbability = greedP;
+        this.traceLevel = traceLevel;
     }
 
     /**
@@ -55,41 +76,421 @@ public class EventSimulator {
      * */
     public static EventSimulator launch(int seed, int num, int nSelf, int qMax, int total, 
         double lambda, double mu, double rho, double restProb, double greed) {
-        return new EventSimulator(seed, num, nSelf, qMax, total, 
-            lambda, mu, rho, restProb, greed);
+        return launch(seed, num, nSelf, qMax, total, 
+            lambda, mu, rho, restProb, greed, TraceLevel.customers());
+    }
+
+    /**
+     * Initialises the event simulator with specified starting conditions,
+     * tracing the events selected by the given trace level.
+     *
+     * @param seed Seed for random generator.
+     * @param num Number of servers for this simulation.
+     * @param qMax Queue size for each server.
+     * @param total The total number of customer arrivals.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param restProb Probability of resting.
+     * @param greed Probability of a greedy customer.
+     * @param traceLevel Events to be traced.
+     * */
+    public static EventSimulator launch(int seed, int num, int nSelf, int qMax, int total, 
+        double lambda, double mu, double rho, double restProb, double greed, 
+        TraceLevel traceLevel) {
+        return launch(seed, num, nSelf, qMax, total, 
+            lambda, mu, rho, restProb, greed, traceLevel, VariateEngine.COMPAT);
+    }
+
+    /**
+     * Initialises the event simulator with specified starting conditions,
+     * tracing the events selected by the given trace level and drawing the 
+     * random variates from the given engine.
+     *
+     * @param seed Seed for random generator.
+     * @param num Number of servers for this simulation.
+     * @param qMax Queue size for each server.
+     * @param total The total number of customer arrivals.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param restProb Probability of resting.
+     * @param greed Probability of a greedy customer.
+     * @param traceLevel Events to be traced.
+     * @param engine Engine of the random variates.
+     * */
+    public static EventSimulator launch(int seed, int num, int nSelf, int qMax, int total, 
+        double lambda, double mu, double rho, double restProb, double greed, 
+        TraceLevel traceLevel, VariateEngine engine) {
+        return launch(num, nSelf, qMax, total, restProb, greed, traceLevel,
+            engine.create(seed, lambda, mu, rho));
+    }
+
+    /**
+     * Initialises the event simulator with specified starting conditions,
+     * drawing the random variates from the given source.
+     *
+     * @param num Number of servers for this simulation.
+     * @param qMax Queue size for each server.
+     * @param total The total number of customer arrivals.
+     * @param restProb Probability of resting.
+     * @param greed Probability of a greedy customer.
+     * @param traceLevel Events to be traced.
+     * @param variates Source of the random variates.
+     * */
+    static EventSimulator launch(int num, int nSelf, int qMax, int total, 
+        double restProb, double greed, TraceLevel traceLevel, VariateSource variates) {
+        return new EventSimulator(num, nSelf, qMax, total, restProb, greed, traceLevel, variates);
+    }
+
+    /**
+     * Replaces the future event list used by this simulator, for comparing 
+     * scheduler implementations. Must be called before {@link #run()}.
+     *
+     * @param eventList An empty future event list.
+     * @return This simulator.
+     * */
+    EventSimulator useEventList(FutureEventList eventList) {
+        assert eventList.isEmpty();
+        this.log = eventList;
+        return this;
+    }
+
+    /**
+     * Handles a following event at once, without scheduling it, when it comes
+     * before every scheduled event and so would be polled straight back. 
+     * This is the case for most serve events of customers who find an idle 
+     * server, and saves them the trip through the future event list. The 
+     * events are handled and traced in exactly the same order either way.
+     * Must be called before {@link #run()}.
+     *
+     * @param fuse Whether to handle such events at once.
+     * @return This simulator.
+     * */
+    public EventSimulator fuseEvents(boolean fuse) {
+        this.fusesEvents = fuse;
+        return this;
+    }
+
+    /**
+     * Polls all the events at the same time and of the same rank, which are 
+     * ordered only by server or customer id, from the future event list at 
+     * once and dispatches them in order, merged with any event scheduled in 
+     * between that comes before the rest of the batch. A following event that
+     * comes before both the next event of the batch and every scheduled event 
+     * is handled at once, as it would be the next event polled, and so are the
+     * following events of the last event of the batch when events are fused. 
+     * The events are handled and traced in exactly the same order either way. 
+     * Arrivals are still routed one at a time, each seeing the servers taken 
+     * by the arrivals before it, as {@link Servlet} finds a server through its
+     * index of the servers in O(log n), which is what routing against a 
+     * snapshot would cost once the snapshot is kept up to date. Must be 
+     * called before {@link #run()}.
+     *
+     * @param batches Whether to poll the events in batches.
+     * @return This simulator.
+     * */
+    public EventSimulator batchEvents(boolean batches) {
+        this.batchesEvents = batches;
+        return this;
+    }
+
+    /**
+     * Draws the service time of every customer on arrival instead of when the
+     * service starts, so that the i-th customer is given the i-th service 
+     * time however the customers are served. Simulations of different 
+     * layouts with the same seed then see the same customers, which is what 
+     * common random numbers need. Must be called before {@link #run()}.
+     *
+     * @return This simulator.
+     * */
+    EventSimulator synchroniseServices() {
+        this.arrivals = new ArrivalStream(context, total, greedProbability, events, true);
+        return this;
+    }
+
+    /**
+     * Replays the arrival and service times recorded in the given file, in 
+     * the format of {@link TraceArrivals}, instead of drawing them. At most 
+     * the total number of customers of this simulator are replayed. Must be 
+     * called before {@link #run()}.
+     *
+     * @param file The file of recorded arrivals.
+     * @return This simulator.
+     * */
+    public EventSimulator replayArrivals(Path file) {
+        this.arrivals = new TraceArrivals(context, file, total, greedProbability, events);
+        return this;
+    }
+
+    /**
+     * Writes the trace to the given file in the binary format of 
+     * {@link BinaryTrace} instead of printing it. The trace level still selects
+     * the events traced. Must be called before {@link #run()}.
+     *
+     * @param file The trace file, which is replaced.
+     * @return This simulator.
+     * */
+    public EventSimulator useBinaryTrace(Path file) {
+        this.binaryTrace = file;
+        return this;
     }
 
     /**
      * Runs the event simulator.
+     * Only the next arrival is kept in the event list. It is generated when the 
+     * previous arrival is handled, so the event list holds O(servers) events.
+     * Handled events are recycled, so the loop allocates no events once the
+     * pool has warmed up. The trace is buffered and written out in chunks.
+     * If nothing is traced, no event is ever formatted.
      * */
     public void run() {
+        start();
+        try {
+            while (step()) {
+                // Every step handles the next event.
+            }
+        } finally {
+            finish();
+        }
+    }
 
-        for (Double d : arrivals) {
-            double greed = rng.genCustomerType();
+    /**
+     * Starts a run of the event simulator, which is then driven by 
+     * {@link #step()} and ended by {@link #finish()}, so that a caller can 
+     * interleave simulators or stop one early.
+     * */
+    void start() {
+        trace = externalTrace;
+        if (trace == null && traceLevel.isEnabled()) {
+            trace = binaryTrace == null 
+                ? new TraceWriter(System.out) 
+                : new BinaryTraceWriter(binaryTrace);
+        }
+        customerEvents = 0;
 
-            Customer guy = greed < gP 
-                ? new Customer(d, true)
-                : new Customer(d, false);
+        scheduleArrival();
+    }
 
-            log.add(new ArrivalEvent(guy, d, stats));
+    /**
+     * Handles the next event, with the following events handled at once if 
+     * events are fused, or the next batch if events are batched.
+     *
+     * @return False if there was no event left, so the run is over.
+     * */
+    boolean step() {
+        if (log.isEmpty()) {
+            return false;
+        }
+        if (batchesEvents) {
+            runBatch();
+            return true;
         }
 
-        while (log.size() > 0) {
-            Event e = log.poll();
+        Event e = log.poll();
 
-            //Debugging purpose
-            // System.out.println(e);
+        while (e != null) {
 
-            if (!e.isServerEvent()) {
-                System.out.println(e);
-            }
+            Event next = handle(e);
 
-            controller.handle(e, stats).ifPresent(event -> log.add(event));
+            if (next != null && fusesEvents && log.isBeforeAll(next)) {
+                // It would be the next event polled, so handle it now.
+                e = next;
+            } else {
+                if (next != null) {
+                    log.add(next);
+                }
+                e = null;
+            }
 
+        }
+        return true;
+    }
 
+    /**
+     * Ends a run, writing out the rest of the trace and closing the arrival
+     * source, such as a replayed file, even if the run was cut short.
+     * */
+    void finish() {
+        arrivals.close();
+        if (trace != null && trace != externalTrace) {
+            trace.close();
         }
+        trace = null;
+    }
+
+    /**
+     * Checks if the next event is an arrival that finds the system empty: 
+     * every server idle and not resting and every queue empty. Such an 
+     * arrival is a regeneration point, from which the simulation goes on 
+     * independently of everything before it. Since only the next arrival is
+     * ever scheduled, the system is empty exactly when that arrival is the
+     * only scheduled event, as a busy or resting server always has its done
+     * or back event scheduled and a queue is only kept by such a server.
+     *
+     * @return True if the next event is an arrival to an empty system.
+     * */
+    boolean isRegenerating() {
+        return log.size() == 1 && log.peek() == nextArrival;
+    }
+
+    /**
+     * Returns the time of the next event.
+     *
+     * @return Time of the next event, or infinity if there is none.
+     * */
+    double nextEventTime() {
+        Event head = log.peek();
+        return head == null ? Double.POSITIVE_INFINITY : head.time;
+    }
+
+    /**
+     * Schedules the arrival of a customer from outside the arrival source, 
+     * such as one sent over from another simulation. The customer must have 
+     * an id no customer of the arrival source has.
+     *
+     * @param customer The arriving customer.
+     * @param time Time of the arrival, no earlier than the last event handled.
+     * */
+    void arrive(Customer customer, double time) {
+        log.add(events.arrived(customer, time, stats));
+    }
+
+    /**
+     * Tells the given consumer of every customer who leaves unserved, with 
+     * the time of leaving, as the leave event is handled.
+     *
+     * @param consumer Told of the customers leaving.
+     * @return This simulator.
+     * */
+    EventSimulator onLeave(ObjDoubleConsumer<Customer> consumer) {
+        this.leaves = consumer;
+        return this;
+    }
+
+    /**
+     * Traces the events to the given sink instead of printing them, leaving
+     * the sink open at the end of the run. The trace level still selects the
+     * events traced. Must be called before {@link #start()}.
+     *
+     * @param sink The trace sink.
+     * @return This simulator.
+     * */
+    EventSimulator useTrace(TraceSink sink) {
+        this.externalTrace = sink;
+        return this;
     }
     
+    /**
+     * Polls the earliest event and every event at the same time and rank, 
+     * then handles them in order, merged with the events scheduled meanwhile.
+     * */
+    private void runBatch() {
+        if (batch == null) {
+            batch = new Event[16];
+        }
+        int n = 0;
+        batch[n++] = log.poll();
+        while (!log.isEmpty() && log.peek().isSameBatch(batch[0])) {
+            if (n == batch.length) {
+                batch = Arrays.copyOf(batch, n * 2);
+            }
+            batch[n++] = log.poll();
+        }
+
+        // A following event scheduled meanwhile, such as the serve of a 
+        // queueing customer after a done, may come before the rest of the 
+        // batch, so once one is scheduled every step takes the earlier of the
+        // two. The arrivals scheduled meanwhile come after the whole batch, as
+        // their customers have the largest ids so far.
+        int i = 0;
+        boolean merging = false;
+        while (i < n) {
+            Event e;
+            Event head = merging ? log.peek() : null;
+            if (head != null && head.compareTo(batch[i]) < 0) {
+                e = log.poll();
+            } else {
+                e = batch[i];
+                batch[i++] = null;
+            }
+
+            while (e != null) {
+
+                Event next = handle(e);
+
+                boolean first = next != null && log.isBeforeAll(next)
+                    && (i < n ? next.compareTo(batch[i]) < 0 : fusesEvents);
+                if (first) {
+                    // It would be the next event polled, so handle it now.
+                    e = next;
+                } else {
+                    if (next != null) {
+                        log.add(next);
+                        merging = true;
+                    }
+                    e = null;
+                }
+
+            }
+        }
+    }
+
+    /**
+     * Schedules the next arrival of the arrival source, if there is one left.
+     * */
+    private void scheduleArrival() {
+        nextArrival = arrivals.hasNext() ? arrivals.next() : null;
+        if (nextArrival != null) {
+            log.add(nextArrival);
+        }
+    }
+
+    /**
+     * Handles an event polled from the future event list, scheduling the 
+     * next arrival after an arrival and tracing the event, then recycles it.
+     *
+     * @param e The event.
+     * @return The following event, or null if there is none.
+     * */
+    private Event handle(Event e) {
+
+        if (e == nextArrival) {
+            scheduleArrival();
+        }
+
+        //Debugging purpose
+        // System.out.println(e);
+
+        if (trace != null) {
+            if (traceLevel.accepts(e, customerEvents)) {
+                trace.write(e);
+            }
+            if (!e.isServerEvent()) {
+                customerEvents++;
+            }
+        }
+
+        Event next = controller.next(e, stats);
+
+        if (leaves != null && e.state == State.LEFT) {
+            leaves.accept(e.customer, e.time);
+        }
+
+        events.release(e);
+
+        return next;
+    }
+
+    /**
+     * Returns the statistics tracked by this simulator.
+     *
+     * @return The statistics.
+     */
+    public Statistics getStatistics() {
+        return stats;
+    }
+
     /**
      * Prints the statistics of the statistics after the event.
      */
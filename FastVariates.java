@@ -0,0 +1,103 @@
+package cs2030.simulator;
+
+/**
+ * A fast source of variates. Every kind of draw has its own xoshiro256** 
+ * stream split from the seed, and the variates of each stream are generated 
+ * in blocks into a primitive buffer, exponentials by the ziggurat method, so
+ * a draw is mostly an array read. It does not reproduce the output of a
+ * {@link RandomGenerator} of the same seed.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+final class FastVariates implements VariateSource {
+    /**Variates generated at once per stream. */
+    private static final int BLOCK = 256;
+
+    private final Block arrivals;
+    private final Block services;
+    private final Block restDecisions;
+    private final Block restPeriods;
+    private final Block customerTypes;
+
+    /**
+     * Creates the streams of the given seed.
+     *
+     * @param seed Seed of the streams.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * */
+    FastVariates(long seed, double lambda, double mu, double rho) {
+        Xoshiro256 root = new Xoshiro256(seed);
+        arrivals = new Block(root.split(), lambda);
+        services = new Block(root.split(), mu);
+        restDecisions = new Block(root.split(), 0);
+        restPeriods = new Block(root.split(), rho);
+        customerTypes = new Block(root.split(), 0);
+    }
+
+    @Override
+    public double genInterArrivalTime() {
+        return arrivals.next();
+    }
+
+    @Override
+    public double genServiceTime() {
+        return services.next();
+    }
+
+    @Override
+    public double genRandomRest() {
+        return restDecisions.next();
+    }
+
+    @Override
+    public double genRestPeriod() {
+        return restPeriods.next();
+    }
+
+    @Override
+    public double genCustomerType() {
+        return customerTypes.next();
+    }
+
+    /**
+     * One stream of variates, either exponential with a rate or uniform.
+     * Blocks are only generated once the stream is first drawn from.
+     * */
+    private static final class Block {
+        private final Xoshiro256 rng;
+        /**Rate of the exponential variates, 0 for uniform variates. */
+        private final double rate;
+        private final double[] values;
+        private int next;
+
+        Block(Xoshiro256 rng, double rate) {
+            this.rng = rng;
+            this.rate = rate;
+            this.values = new double[BLOCK];
+            this.next = BLOCK;
+        }
+
+        double next() {
+            if (next == BLOCK) {
+                refill();
+            }
+            return values[next++];
+        }
+
+        private void refill() {
+            if (rate == 0) {
+                for (int i = 0; i < BLOCK; i++) {
+                    values[i] = rng.nextDouble();
+                }
+            } else {
+                for (int i = 0; i < BLOCK; i++) {
+                    values[i] = rng.nextExponential() / rate;
+                }
+            }
+            next = 0;
+        }
+    }
+
+}
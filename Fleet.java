@@ -0,0 +1,134 @@
+package cs2030.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simulates a chain of independent stores, each its own scenario, sharded 
+ * across the threads of a pool. Every shard runs its stores on one thread, 
+ * interleaved a slice of events at a time, so that a shard holds many small
+ * simulations at once instead of a thread per store. 
+ *
+ * <p>The statistics of each store are only touched by the thread of its 
+ * shard, which also merges them into the statistics of the shard as the 
+ * store finishes. The chain-wide statistics merge those of the shards once 
+ * every shard is done, so no statistics are shared, and no lock taken, 
+ * while the stores run. The statistics of the stores do not depend on the
+ * number of shards or the slice, and those of the chain only up to the 
+ * rounding of the sums.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class Fleet {
+    /**Default number of events each store handles before the next has its turn. */
+    public static final int DEFAULT_SLICE = 1024;
+
+    private final Statistics[] stores;
+    private final Statistics chain;
+
+    private Fleet(Statistics[] stores, Statistics[] shards) {
+        this.stores = stores;
+        this.chain = new Statistics();
+        for (Statistics s : shards) {
+            chain.merge(s);
+        }
+    }
+
+    /**
+     * Runs the stores in the given number of shards on the pool, store i 
+     * in shard i mod shards.
+     *
+     * @param scenarios The scenario of each store.
+     * @param shards Number of shards.
+     * @param slice Number of events each store handles in its turn.
+     * @param pool The pool running the shards.
+     * @return The statistics of the stores and the chain.
+     * */
+    public static Fleet run(List<Scenario> scenarios, int shards, int slice, ForkJoinPool pool) {
+        if (slice < 1) {
+            throw new IllegalArgumentException("Slice must be positive: " + slice);
+        }
+        Statistics[] stores = new Statistics[scenarios.size()];
+        int count = Math.max(1, Math.min(shards, scenarios.size()));
+        List<Callable<Statistics>> tasks = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            List<Integer> mine = new ArrayList<>();
+            for (int i = k; i < scenarios.size(); i += count) {
+                mine.add(i);
+            }
+            tasks.add(() -> runShard(scenarios, mine, slice, stores));
+        }
+        // The statistics of the stores are safely published by the futures.
+        return new Fleet(stores, Replications.invokeAll(tasks, pool));
+    }
+
+    /**
+     * Runs the given stores round-robin, each a slice of events at a time, 
+     * and returns their merged statistics.
+     * */
+    private static Statistics runShard(List<Scenario> scenarios, List<Integer> mine, int slice,
+        Statistics[] stores) {
+        int active = mine.size();
+        EventSimulator[] running = new EventSimulator[active];
+        int[] index = new int[active];
+        for (int j = 0; j < active; j++) {
+            index[j] = mine.get(j);
+            running[j] = scenarios.get(index[j]).launch(TraceLevel.none());
+            running[j].start();
+        }
+
+        Statistics shard = new Statistics();
+        while (active > 0) {
+            for (int j = 0; j < active; j++) {
+                EventSimulator es = running[j];
+                boolean more = true;
+                for (int n = 0; n < slice && more; n++) {
+                    more = es.step();
+                }
+                if (!more) {
+                    es.finish();
+                    stores[index[j]] = es.getStatistics();
+                    shard.merge(es.getStatistics());
+                    // Moves the last running store into the finished one's place.
+                    active--;
+                    running[j] = running[active];
+                    index[j] = index[active];
+                    running[active] = null;
+                    j--;
+                }
+            }
+        }
+        return shard;
+    }
+
+    /**
+     * Returns the statistics of the given store.
+     *
+     * @param store Index of the store, from 0.
+     * @return The statistics.
+     * */
+    public Statistics getStatistics(int store) {
+        return stores[store];
+    }
+
+    /**
+     * Returns the statistics of every store merged together.
+     *
+     * @return The chain-wide statistics.
+     * */
+    public Statistics getStatistics() {
+        return chain;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < stores.length; i++) {
+            sb.append(String.format("store %d %s%n", i + 1, stores[i]));
+        }
+        sb.append("chain ").append(chain);
+        return sb.toString();
+    }
+}
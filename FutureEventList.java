@@ -0,0 +1,60 @@
+package cs2030.simulator;
+
+/**
+ * The future event list of the simulator, which hands out the scheduled events
+ * in the order defined by {@link Event#compareTo}.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+interface FutureEventList {
+
+    /**
+     * Schedules the given event.
+     *
+     * @param e The event to be scheduled.
+     * */
+    public void add(Event e);
+
+    /**
+     * Removes and returns the earliest scheduled event.
+     *
+     * @return The earliest event, or null if no event is scheduled.
+     * */
+    public Event poll();
+
+    /**
+     * Returns the earliest scheduled event without removing it.
+     *
+     * @return The earliest event, or null if no event is scheduled.
+     * */
+    public Event peek();
+
+    /**
+     * Checks if the given event comes before every scheduled event, so that
+     * it would be the next event polled if it were added.
+     *
+     * @param e The event, which is not scheduled.
+     * @return True if the event comes first.
+     * */
+    public default boolean isBeforeAll(Event e) {
+        Event head = peek();
+        return head == null || e.compareTo(head) < 0;
+    }
+
+    /**
+     * Returns the number of scheduled events.
+     *
+     * @return Number of events.
+     * */
+    public int size();
+
+    /**
+     * Checks if no event is scheduled.
+     *
+     * @return True if there are no more events.
+     * */
+    public default boolean isEmpty() {
+        return size() == 0;
+    }
+
+}
@@ -17,7 +17,7 @@ public class LeaveEvent extends Event {
      * */
     public LeaveEvent(Customer customer, double time, Statistics stats) {
         super(customer, State.LEFT, time, null);
-        stats.notServed();
+        stats.notServed(customer);
     }
 
     @Override
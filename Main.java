@@ -1,11 +1,79 @@
+import cs2030.simulator.BinaryTrace;
+import cs2030.simulator.Comparison;
+import cs2030.simulator.Daemon;
+import cs2030.simulator.Departments;
 import cs2030.simulator.EventSimulator;
+import cs2030.simulator.Fleet;
+import cs2030.simulator.Regenerative;
+import cs2030.simulator.Replications;
+import cs2030.simulator.Sampling;
+import cs2030.simulator.Scenario;
+import cs2030.simulator.Sweep;
+import cs2030.simulator.TraceLevel;
+import cs2030.simulator.VariateCache;
+import cs2030.simulator.VariateEngine;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Main class for the program.
  *
+ * <p>Usage: {@code java Main [--trace=LEVEL] [--details] [--replications=N] [--sweep] 
+ * [--threads=T] [file]}, where LEVEL is one of full, customers (the default), 
+ * none, every:N or window:FROM:TO.
+ * With --binary-trace=PATH the trace is written to PATH in the binary format
+ * of {@link BinaryTrace} instead, and {@code java Main --decode=PATH} prints 
+ * such a trace as text.
+ * With --arrivals=PATH the arrival and service times are replayed from 
+ * the records in PATH (see {@link EventSimulator#replayArrivals})
+ * instead of being drawn.
+ * With --engine=fast the random variates come from the fast engine of 
+ * {@link VariateEngine} instead of the generator reproducing existing output.
+ * With --cache=DIR the variates are read from, and stored in, a cache of 
+ * variate streams in DIR of at most --cache-size=MB megabytes (default 1024),
+ * which does not change the output.
+ * With --fuse, following events that come first are handled without being
+ * scheduled, and with --batch the events at the same time are polled at
+ * once, neither of which changes the output.
+ * With --details, the wait time percentiles, loss rates and per-server 
+ * utilisation follow the statistics.
+ * With N replications, the scenario is run with N seeds five apart in
+ * parallel and only the estimates across them are printed.
+ * With --compare, the input holds two scenarios, which are replicated N
+ * times each (default 30) to estimate the differences between them.
+ * Replications and comparisons draw their random numbers by --sampling=MODE,
+ * one of independent (the default), common or antithetic.
+ * With --regenerative=K, one long run of the scenario is cut at arrivals to
+ * the empty system into K chunks run in parallel, and with --sequential 
+ * the chunks are run one after another with their traces stitched together.
+ * With --departments, every scenario of the input is a department of one 
+ * store, and the customers turned away by a department walk to the next in
+ * --transfer-delay=D (default 1.0). The departments are run in parallel on
+ * T threads, or with --sequential one event at a time.
+ * With --fleet, every scenario of the input is a store of a chain, and the
+ * stores are sharded across T threads, each running its stores interleaved
+ * --slice=S events at a time (default 1024); the statistics of every store
+ * are followed by those of the whole chain, and with --details the report 
+ * of the chain.
+ * With --sweep, every line of the input is a scenario or a grid of scenarios 
+ * (see {@link Sweep#expand}), which are run in parallel on T threads 
+ * (default: all cores) and printed as CSV rows as they finish.
+ *
+ * <p>{@code java Main --daemon} answers scenario lines from stdin with one
+ * statistics line each until stdin ends, and {@code java Main --port=P} does the
+ * same for every connection to port P of the loopback address.
+ *
  * @author LeeEnHao_A0204679W
  * */
 public class Main {
@@ -13,24 +81,182 @@ public class Main {
     /**
      * Entry point of the program.
      * */
-    public static void main(String[] args) {
-        Scanner input = readInput(args);
+    public static void main(String[] args) throws IOException {
+        TraceLevel trace = TraceLevel.customers();
+        int replications = 0;
+        boolean sweep = false;
+        boolean compare = false;
+        int chunks = 0;
+        boolean sequential = false;
+        boolean departments = false;
+        double transferDelay = 1.0;
+        boolean fleet = false;
+        int slice = Fleet.DEFAULT_SLICE;
+        Sampling sampling = Sampling.INDEPENDENT;
+        boolean details = false;
+        boolean fuse = false;
+        boolean batch = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String file = null;
+        Path binaryTrace = null;
+        Path arrivals = null;
+        VariateEngine engine = VariateEngine.COMPAT;
+        Path cacheDirectory = null;
+        long cacheSize = 1L << 30;
+        for (String arg : args) {
+            if (arg.startsWith("--decode=")) {
+                BinaryTrace.decode(Paths.get(arg.substring("--decode=".length())), System.out);
+                return;
+            } else if (arg.equals("--daemon")) {
+                Daemon.serve(new FileInputStream(FileDescriptor.in).getChannel(), System.out);
+                return;
+            } else if (arg.startsWith("--port=")) {
+                Daemon.listen(Integer.parseInt(arg.substring("--port=".length())));
+                return;
+            }
+        }
+        for (String arg : args) {
+            if (arg.startsWith("--trace=")) {
+                trace = TraceLevel.parse(arg.substring("--trace=".length()));
+            } else if (arg.startsWith("--replications=")) {
+                replications = Integer.parseInt(arg.substring("--replications=".length()));
+            } else if (arg.startsWith("--binary-trace=")) {
+                binaryTrace = Paths.get(arg.substring("--binary-trace=".length()));
+            } else if (arg.startsWith("--arrivals=")) {
+                arrivals = Paths.get(arg.substring("--arrivals=".length()));
+            } else if (arg.startsWith("--engine=")) {
+                engine = VariateEngine.parse(arg.substring("--engine=".length()));
+            } else if (arg.startsWith("--cache=")) {
+                cacheDirectory = Paths.get(arg.substring("--cache=".length()));
+            } else if (arg.startsWith("--cache-size=")) {
+                cacheSize = Long.parseLong(arg.substring("--cache-size=".length())) << 20;
+            } else if (arg.equals("--fuse")) {
+                fuse = true;
+            } else if (arg.equals("--batch")) {
+                batch = true;
+            } else if (arg.equals("--details")) {
+                details = true;
+            } else if (arg.equals("--compare")) {
+                compare = true;
+            } else if (arg.startsWith("--sampling=")) {
+                sampling = Sampling.valueOf(
+                    arg.substring("--sampling=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--regenerative=")) {
+                chunks = Integer.parseInt(arg.substring("--regenerative=".length()));
+            } else if (arg.equals("--sequential")) {
+                sequential = true;
+            } else if (arg.equals("--fleet")) {
+                fleet = true;
+            } else if (arg.startsWith("--slice=")) {
+                slice = Integer.parseInt(arg.substring("--slice=".length()));
+            } else if (arg.equals("--departments")) {
+                departments = true;
+            } else if (arg.startsWith("--transfer-delay=")) {
+                transferDelay = Double.parseDouble(arg.substring("--transfer-delay=".length()));
+            } else if (arg.equals("--sweep")) {
+                sweep = true;
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else {
+                file = arg;
+            }
+        }
+
+        VariateCache cache = cacheDirectory == null 
+            ? null 
+            : new VariateCache(cacheDirectory, cacheSize);
+        Scanner input = readInput(file);
         if (input == null) {
             return;
+        } else if (sweep) {
+            runSweep(input, threads, engine, cache);
+        } else if (compare) {
+            Scenario first = init(input).withEngine(engine).withCache(cache);
+            Scenario second = init(input).withEngine(engine).withCache(cache);
+            System.out.println(Comparison.run(first, second, 
+                replications > 0 ? replications : 30, sampling));
+        } else if (fleet) {
+            runFleet(readScenarios(input, engine, cache), threads, slice, details);
+        } else if (departments) {
+            List<Scenario> scenarios = readScenarios(input, engine, cache);
+            System.out.println(sequential 
+                ? Departments.runSequential(scenarios, transferDelay)
+                : Departments.run(scenarios, transferDelay, threads));
+        } else if (chunks > 0) {
+            Scenario scenario = init(input).withEngine(engine).withCache(cache);
+            System.out.println(sequential 
+                ? Regenerative.runSequential(scenario, chunks, trace)
+                : Regenerative.run(scenario, chunks, ForkJoinPool.commonPool()));
+        } else if (replications > 0) {
+            Scenario scenario = init(input).withEngine(engine).withCache(cache);
+            System.out.println(Replications.run(scenario, replications, 
+                sampling, ForkJoinPool.commonPool()));
         } else {
-            EventSimulator es = init(input);
+            EventSimulator es = init(input).withEngine(engine).withCache(cache).launch(trace);
+            if (binaryTrace != null) {
+                es.useBinaryTrace(binaryTrace);
+            }
+            if (arrivals != null) {
+                es.replayArrivals(arrivals);
+            }
+            es.fuseEvents(fuse).batchEvents(batch);
             es.run();
             es.printStats();
+            if (details) {
+                System.out.print(es.getStatistics().report());
+            }
         }
     }
 
-    private static Scanner readInput(String[] args) {
-        if (args.length == 0) {
+    private static void runSweep(Scanner input, int threads, VariateEngine engine,
+        VariateCache cache) {
+        List<Scenario> scenarios = new ArrayList<>();
+        while (input.hasNextLine()) {
+            String line = input.nextLine();
+            if (!line.isBlank()) {
+                for (Scenario s : Sweep.expand(line)) {
+                    scenarios.add(s.withEngine(engine).withCache(cache));
+                }
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Sweep.run(scenarios, new OutputStreamWriter(System.out), pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void runFleet(List<Scenario> stores, int threads, int slice, 
+        boolean details) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Fleet fleet = Fleet.run(stores, threads, slice, pool);
+            System.out.println(fleet);
+            if (details) {
+                System.out.print(fleet.getStatistics().report());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<Scenario> readScenarios(Scanner input, VariateEngine engine, 
+        VariateCache cache) {
+        List<Scenario> scenarios = new ArrayList<>();
+        while (input.hasNextInt()) {
+            scenarios.add(init(input).withEngine(engine).withCache(cache));
+        }
+        return scenarios;
+    }
+
+    private static Scanner readInput(String file) {
+        if (file == null) {
             //No file read from stdin
             return new Scanner(System.in);
         } else {
             try {
-                FileReader fr = new FileReader(args[0]);
+                FileReader fr = new FileReader(file);
                 return new Scanner(fr);
             } catch (Exception e) {
                 return null;
@@ -38,7 +264,7 @@ public class Main {
         }
     }
 
-    private static EventSimulator init(Scanner sc) {
+    private static Scenario init(Scanner sc) {
         int seed = sc.nextInt();
         int serverNum = sc.nextInt();
         int nself = sc.nextInt();
@@ -50,10 +276,8 @@ public class Main {
         double restProb = sc.nextDouble();
         double greedP = sc.nextDouble();
 
-        EventSimulator es = EventSimulator.launch(seed, serverNum, nself, qmax, customerNum,
+        return new Scenario(seed, serverNum, nself, qmax, customerNum,
             lambda, mu, rho, restProb, greedP);
-
-        return es;
     }
 
 }
@@ -0,0 +1,42 @@
+package cs2030.simulator;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * A future event list backed by a {@link PriorityQueue} of events.
+ * This was the original scheduler, kept for comparison against {@link EventHeap}.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class QueueEventList implements FutureEventList {
+    private final Queue<Event> queue;
+
+    /**
+     * Creates an empty event list.
+     * */
+    QueueEventList() {
+        queue = new PriorityQueue<>();
+    }
+
+    @Override
+    public void add(Event e) {
+        queue.add(e);
+    }
+
+    @Override
+    public Event poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public Event peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+}
@@ -0,0 +1,106 @@
+package cs2030.simulator;
+
+/**
+ * A running estimate of a ratio of means, E[Y] / E[X], from independent 
+ * observations of the pair (Y, X), with the 95% confidence interval of the 
+ * classical ratio estimator. This is the estimator of a regenerative 
+ * simulation, where Y is a total over a regeneration cycle, such as the wait 
+ * time of its customers, and X the length of the cycle, such as its number 
+ * of customers. The means and co-moments are kept as in {@link Estimate}, 
+ * and estimates of separate runs merge exactly.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public class RatioEstimate {
+    private long count;
+    private double meanY;
+    private double meanX;
+    /**Sums of the products of the deviations from the means. */
+    private double cyy;
+    private double cxx;
+    private double cxy;
+
+    /**
+     * Creates an estimate without observations.
+     * */
+    public RatioEstimate() {
+        count = 0;
+        meanY = 0.000;
+        meanX = 0.000;
+        cyy = 0.000;
+        cxx = 0.000;
+        cxy = 0.000;
+    }
+
+    /**
+     * Adds an observation.
+     *
+     * @param y The observed numerator.
+     * @param x The observed denominator.
+     * */
+    public void add(double y, double x) {
+        count++;
+        double dy = y - meanY;
+        double dx = x - meanX;
+        meanY += dy / count;
+        meanX += dx / count;
+        cyy += dy * (y - meanY);
+        cxx += dx * (x - meanX);
+        cxy += dx * (y - meanY);
+    }
+
+    /**
+     * Adds the observations of another estimate to this one.
+     *
+     * @param other The estimate to be merged, which is not changed.
+     * @return This estimate.
+     * */
+    public RatioEstimate merge(RatioEstimate other) {
+        if (other.count == 0) {
+            return this;
+        }
+        long n = count + other.count;
+        double dy = other.meanY - meanY;
+        double dx = other.meanX - meanX;
+        double weight = (double) count * other.count / n;
+        cyy += other.cyy + dy * dy * weight;
+        cxx += other.cxx + dx * dx * weight;
+        cxy += other.cxy + dx * dy * weight;
+        meanY += dy * other.count / n;
+        meanX += dx * other.count / n;
+        count = n;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the estimated ratio.
+     *
+     * @return The ratio, 0 without observations.
+     * */
+    public double getRatio() {
+        return meanX == 0 ? 0.000 : meanY / meanX;
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval of the ratio.
+     *
+     * @return The half width, infinite with fewer than two observations.
+     * */
+    public double getHalfWidth() {
+        if (count < 2 || meanX == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double r = getRatio();
+        double variance = Math.max(0, (cyy - 2 * r * cxy + r * r * cxx) / (count - 1));
+        return Estimate.quantile(count - 1) * Math.sqrt(variance / count) / meanX;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f +- %.3f", getRatio(), getHalfWidth());
+    }
+}
@@ -0,0 +1,252 @@
+package cs2030.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs one long simulation of a scenario as independent chunks in parallel,
+ * cut at regeneration points. The system regenerates whenever a customer 
+ * arrives to find every server idle and not resting and every queue empty: 
+ * as the arrivals are Poisson and the service times independent, what follows
+ * is independent of what went before. So a chunk with its own seed starts, 
+ * like any simulation, with an arrival to an empty system, runs at least its 
+ * share of the customers, and ends just before the next arrival that finds
+ * the system empty. Laid end to end, the chunks are one simulation of the
+ * scenario.
+ *
+ * <p>The statistics of the chunks are merged, and the average wait time and 
+ * the loss rate are estimated by the ratio estimator over every 
+ * regeneration cycle of every chunk, which gives valid confidence intervals 
+ * where the customers of one run are far from independent. The chunks can 
+ * also be run one after another on one thread with their traces stitched 
+ * together, which gives exactly the same results.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class Regenerative {
+    private final int chunks;
+    private final Statistics stats;
+    private final RatioEstimate waitTime;
+    private final RatioEstimate lossRate;
+
+    private Regenerative(List<Chunk> results) {
+        chunks = results.size();
+        stats = new Statistics();
+        waitTime = new RatioEstimate();
+        lossRate = new RatioEstimate();
+        for (Chunk c : results) {
+            stats.merge(c.stats);
+            waitTime.merge(c.waitTime);
+            lossRate.merge(c.lossRate);
+        }
+    }
+
+    /**
+     * Runs the scenario as the given number of chunks on the given pool.
+     * The chunks have seeds seed, seed + 5, ... (see {@link Scenario#forRun}),
+     * so no two share a stream, and together at least the customers of the
+     * scenario.
+     *
+     * @param scenario The scenario.
+     * @param chunks Number of chunks.
+     * @param pool The pool running the chunks.
+     * @return The results of the chunks together.
+     * */
+    public static Regenerative run(Scenario scenario, int chunks, ForkJoinPool pool) {
+        int share = share(scenario, chunks);
+        List<Callable<Chunk>> tasks = new ArrayList<>();
+        for (int k = 0; k < chunks; k++) {
+            int chunk = k;
+            tasks.add(() -> runChunk(scenario, chunk, share, TraceLevel.none(), null));
+        }
+
+        List<Chunk> results = new ArrayList<>();
+        List<Future<Chunk>> futures = pool.invokeAll(tasks);
+        for (int k = 0; k < chunks; k++) {
+            try {
+                results.add(futures.get(k).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Chunk " + k + " failed", e.getCause());
+            }
+        }
+        return new Regenerative(results);
+    }
+
+    /**
+     * Runs the chunks of {@link #run} one after another on this thread, 
+     * printing their traces stitched together as the trace of one 
+     * simulation: the times and customer ids of every chunk carry on from 
+     * where the chunk before it was cut.
+     *
+     * @param scenario The scenario.
+     * @param chunks Number of chunks.
+     * @param traceLevel Events to be traced.
+     * @return The results of the chunks together.
+     * */
+    public static Regenerative runSequential(Scenario scenario, int chunks, 
+        TraceLevel traceLevel) {
+        int share = share(scenario, chunks);
+        TraceWriter out = traceLevel.isEnabled() ? new TraceWriter(System.out) : null;
+        List<Chunk> results = new ArrayList<>();
+        double time = 0.000;
+        int customers = 0;
+        for (int k = 0; k < chunks; k++) {
+            Shifted sink = out == null ? null : new Shifted(out, time, customers);
+            Chunk c = runChunk(scenario, k, share, traceLevel, sink);
+            results.add(c);
+            time += c.length;
+            customers += c.customers;
+        }
+        if (out != null) {
+            out.close();
+        }
+        return new Regenerative(results);
+    }
+
+    private static int share(Scenario scenario, int chunks) {
+        if (chunks < 1 || scenario.getTotal() < 1) {
+            throw new IllegalArgumentException(
+                "Need at least one chunk and one customer: " + chunks + " chunks");
+        }
+        return (scenario.getTotal() + chunks - 1) / chunks;
+    }
+
+    /**
+     * Runs one chunk until the first regeneration point after at least share
+     * customers. A chunk has as many arrivals as the scenario, so it ends 
+     * early if they run out first, once the last customer is gone, which
+     * also closes a cycle as the system is then empty.
+     * */
+    private static Chunk runChunk(Scenario scenario, int k, int share, TraceLevel traceLevel,
+        TraceSink sink) {
+        Scenario chunk = scenario.forRun(k);
+        // Events are not fused, so every step handles one event and the time 
+        // of the last event handled is known.
+        EventSimulator es = chunk.launch(traceLevel);
+        if (sink != null) {
+            es.useTrace(sink);
+        }
+        Statistics s = es.getStatistics();
+        RatioEstimate waitTime = new RatioEstimate();
+        RatioEstimate lossRate = new RatioEstimate();
+        double cycleWait = 0.000;
+        int cycleServed = 0;
+        int cycleLeft = 0;
+
+        es.start();
+        // The first event is an arrival to the empty system, which starts the first cycle.
+        double length = es.nextEventTime();
+        es.step();
+        while (true) {
+            boolean ended = es.nextEventTime() == Double.POSITIVE_INFINITY;
+            if (ended || es.isRegenerating()) {
+                // Every customer of the cycle has been served or has left.
+                int served = s.getServed() - cycleServed;
+                int left = s.getNotServed() - cycleLeft;
+                waitTime.add(s.getTotalWaitTime() - cycleWait, served);
+                lossRate.add(left, served + left);
+                cycleWait = s.getTotalWaitTime();
+                cycleServed = s.getServed();
+                cycleLeft = s.getNotServed();
+                if (ended) {
+                    break;
+                } else if (cycleServed + cycleLeft >= share) {
+                    // Cut just before the arrival to the empty system.
+                    length = es.nextEventTime();
+                    break;
+                }
+            }
+            length = es.nextEventTime();
+            es.step();
+        }
+        es.finish();
+        s.extendTo(length);
+        return new Chunk(s, waitTime, lossRate, length, cycleServed + cycleLeft);
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the statistics of all chunks merged together.
+     *
+     * @return The merged statistics.
+     * */
+    public Statistics getStatistics() {
+        return stats;
+    }
+
+    public RatioEstimate getWaitTime() {
+        return waitTime;
+    }
+
+    public RatioEstimate getLossRate() {
+        return lossRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("regenerative %d chunks %d cycles%nwait      %s%nloss      %s%n%s",
+            chunks, waitTime.getCount(), waitTime, lossRate, stats);
+    }
+
+    /**
+     * The results of one chunk.
+     * */
+    private static final class Chunk {
+        private final Statistics stats;
+        private final RatioEstimate waitTime;
+        private final RatioEstimate lossRate;
+        /**Time of the arrival the chunk was cut at. */
+        private final double length;
+        private final int customers;
+
+        Chunk(Statistics stats, RatioEstimate waitTime, RatioEstimate lossRate, 
+            double length, int customers) {
+            this.stats = stats;
+            this.waitTime = waitTime;
+            this.lossRate = lossRate;
+            this.length = length;
+            this.customers = customers;
+        }
+    }
+
+    /**
+     * A trace of a chunk written with its times and customer ids shifted by 
+     * those of the chunks before it.
+     * */
+    private static final class Shifted implements TraceSink {
+        private final TraceWriter out;
+        private final double time;
+        private final int customers;
+
+        Shifted(TraceWriter out, double time, int customers) {
+            this.out = out;
+            this.time = time;
+            this.customers = customers;
+        }
+
+        @Override
+        public void write(Event e) {
+            Customer c = e.customer;
+            Server s = e.server;
+            out.write(e.time + time, e.state,
+                c == null ? 0 : c.getId() + customers, c != null && c.isGreedy(),
+                s == null ? 0 : s.id, s != null && s.isSelfCheckOut());
+        }
+
+        @Override
+        public void close() {
+            // The writer is shared by every chunk and closed after the last.
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package cs2030.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs independent replications of a scenario in parallel, one seed per 
+ * replication and each in its own simulation context, and estimates the 
+ * average wait time and the served and not served counts across them. 
+ * The statistics of all replications are also merged, giving the wait 
+ * time percentiles over every customer of every replication.
+ *
+ * <p>With {@link Sampling#ANTITHETIC}, every replication is run with its 
+ * antithetic twin and each estimate is over the averages of the pairs.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public class Replications {
+    private final int count;
+    private final Estimate waitTime;
+    private final Estimate served;
+    private final Estimate notServed;
+    private final Statistics pooled;
+
+    private Replications(Statistics[] results, boolean paired) {
+        waitTime = estimate(observe(results, paired, Statistics::getAverageWaitTime));
+        served = estimate(observe(results, paired, Statistics::getServed));
+        notServed = estimate(observe(results, paired, Statistics::getNotServed));
+        count = (int) waitTime.getCount();
+        pooled = new Statistics();
+        for (Statistics s : results) {
+            pooled.merge(s);
+        }
+    }
+
+    /**
+     * Runs n replications of the scenario on the common fork-join pool,
+     * with seeds seed, seed + 5, ..., seed + 5(n - 1), see {@link Scenario#forRun}.
+     *
+     * @param scenario The scenario.
+     * @param n Number of replications.
+     * @return The estimates over the replications.
+     * */
+    public static Replications run(Scenario scenario, int n) {
+        return run(scenario, n, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs n replications of the scenario on the given pool,
+     * with seeds seed, seed + 5, ..., seed + 5(n - 1).
+     *
+     * @param scenario The scenario.
+     * @param n Number of replications.
+     * @param pool The pool running the replications.
+     * @return The estimates over the replications.
+     * */
+    public static Replications run(Scenario scenario, int n, ForkJoinPool pool) {
+        return run(scenario, n, Sampling.INDEPENDENT, pool);
+    }
+
+    /**
+     * Runs n replications of the scenario on the given pool,
+     * with seeds seed, seed + 5, ..., seed + 5(n - 1), sampled as given.
+     *
+     * @param scenario The scenario.
+     * @param n Number of replications, or of antithetic pairs.
+     * @param sampling How the replications draw their random numbers.
+     * @param pool The pool running the replications.
+     * @return The estimates over the replications.
+     * */
+    public static Replications run(Scenario scenario, int n, Sampling sampling, 
+        ForkJoinPool pool) {
+        List<Callable<Statistics>> tasks = new ArrayList<>();
+        addTasks(tasks, scenario, n, sampling, 0);
+        return new Replications(invokeAll(tasks, pool), sampling == Sampling.ANTITHETIC);
+    }
+
+    /**
+     * Adds the tasks of n replications of the scenario, two per replication 
+     * with antithetic sampling.
+     *
+     * @param tasks The tasks.
+     * @param scenario The scenario.
+     * @param n Number of replications.
+     * @param sampling How the replications draw their random numbers.
+     * @param firstRun Index of the first replication among the runs of the 
+     *     scenario, see {@link Scenario#forRun}.
+     * */
+    static void addTasks(List<Callable<Statistics>> tasks, Scenario scenario, int n,
+        Sampling sampling, int firstRun) {
+        boolean synchronised = sampling != Sampling.INDEPENDENT;
+        for (int i = 0; i < n; i++) {
+            Scenario replication = scenario.forRun(firstRun + i);
+            tasks.add(task(replication, false, synchronised));
+            if (sampling == Sampling.ANTITHETIC) {
+                tasks.add(task(replication, true, synchronised));
+            }
+        }
+    }
+
+    private static Callable<Statistics> task(Scenario replication, boolean antithetic, 
+        boolean synchronised) {
+        return () -> {
+            EventSimulator es = replication.launch(TraceLevel.none(), antithetic, synchronised);
+            es.run();
+            return es.getStatistics();
+        };
+    }
+
+    /**
+     * Runs the tasks on the pool and returns their statistics in order.
+     *
+     * @param tasks The tasks.
+     * @param pool The pool running the tasks.
+     * @return The statistics of the tasks.
+     * */
+    static Statistics[] invokeAll(List<Callable<Statistics>> tasks, ForkJoinPool pool) {
+        Statistics[] results = new Statistics[tasks.size()];
+        List<Future<Statistics>> futures = pool.invokeAll(tasks);
+        for (int i = 0; i < results.length; i++) {
+            try {
+                results[i] = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while replicating", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Replication " + i + " failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the observations of a quantity over the results, each the 
+     * average over a pair of consecutive results if they are paired.
+     *
+     * @param results The statistics of the replications.
+     * @param paired Whether consecutive results are antithetic pairs.
+     * @param quantity The quantity observed.
+     * @return The observations.
+     * */
+    static double[] observe(Statistics[] results, boolean paired, 
+        ToDoubleFunction<Statistics> quantity) {
+        if (!paired) {
+            double[] observations = new double[results.length];
+            for (int i = 0; i < results.length; i++) {
+                observations[i] = quantity.applyAsDouble(results[i]);
+            }
+            return observations;
+        }
+        double[] observations = new double[results.length / 2];
+        for (int i = 0; i < observations.length; i++) {
+            observations[i] = (quantity.applyAsDouble(results[2 * i]) 
+                + quantity.applyAsDouble(results[2 * i + 1])) / 2;
+        }
+        return observations;
+    }
+
+    private static Estimate estimate(double[] observations) {
+        Estimate e = new Estimate();
+        for (double x : observations) {
+            e.add(x);
+        }
+        return e;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Estimate getWaitTime() {
+        return waitTime;
+    }
+
+    public Estimate getServed() {
+        return served;
+    }
+
+    public Estimate getNotServed() {
+        return notServed;
+    }
+
+    /**
+     * Returns the statistics of all replications merged together.
+     *
+     * @return The merged statistics.
+     * */
+    public Statistics getPooled() {
+        return pooled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("replications %d%nwait      %s%nserved    %s%nnotServed %s"
+            + "%npooled    p50 %.3f p95 %.3f p99 %.3f",
+            count, waitTime, served, notServed, pooled.getWaitPercentile(50),
+            pooled.getWaitPercentile(95), pooled.getWaitPercentile(99));
+    }
+}
@@ -0,0 +1,31 @@
+package cs2030.simulator;
+
+/**
+ * How the replications of a scenario, or of two scenarios being compared, 
+ * draw their random numbers.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public enum Sampling {
+
+    /**
+     * Every replication has its own seed, and the replications of two 
+     * scenarios being compared have different seeds.
+     * */
+    INDEPENDENT,
+
+    /**
+     * Common random numbers: the i-th replications of two scenarios share a
+     * seed, and every customer is given a service time on arrival, so both 
+     * see the same customers with the same service times, and the servers the
+     * same rest decisions and periods in order.
+     * */
+    COMMON,
+
+    /**
+     * Common random numbers, with every replication paired with its 
+     * antithetic twin and the pair averaged into one observation.
+     * */
+    ANTITHETIC
+
+}
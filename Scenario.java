@@ -0,0 +1,172 @@
+package cs2030.simulator;
+
+import java.util.Locale;
+
+/**
+ * The starting conditions of a simulation, as read by the program from its input.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class Scenario {
+    /**
+     * Consecutive seeds taken by one run: {@link RandomGenerator} seeds one 
+     * stream per kind of draw, with seed, seed + 1, ..., seed + 4.
+     * */
+    static final int SEEDS_PER_RUN = Draw.values().length;
+
+    private final int seed;
+    private final int servers;
+    private final int nSelf;
+    private final int qMax;
+    private final int total;
+    private final double lambda;
+    private final double mu;
+    private final double rho;
+    private final double restProb;
+    private final double greedP;
+    private final VariateEngine engine;
+    /**Cache of the variates, or null to generate them. */
+    private final VariateCache cache;
+
+    /**
+     * Creates a scenario with specified starting conditions.
+     *
+     * @param seed Seed for random generator.
+     * @param servers Number of servers for this simulation.
+     * @param nSelf Number of self-checkouts.
+     * @param qMax Queue size for each server.
+     * @param total The total number of customer arrivals.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param restProb Probability of resting.
+     * @param greedP Probability of a greedy customer.
+     * */
+    public Scenario(int seed, int servers, int nSelf, int qMax, int total, 
+        double lambda, double mu, double rho, double restProb, double greedP) {
+        this(seed, servers, nSelf, qMax, total, lambda, mu, rho, restProb, greedP,
+            VariateEngine.COMPAT, null);
+    }
+
+    private Scenario(int seed, int servers, int nSelf, int qMax, int total, 
+        double lambda, double mu, double rho, double restProb, double greedP,
+        VariateEngine engine, VariateCache cache) {
+        this.seed = seed;
+        this.servers = servers;
+        this.nSelf = nSelf;
+        this.qMax = qMax;
+        this.total = total;
+        this.lambda = lambda;
+        this.mu = mu;
+        this.rho = rho;
+        this.restProb = restProb;
+        this.greedP = greedP;
+        this.engine = engine;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the same scenario with another seed.
+     *
+     * @param newSeed Seed for random generator.
+     * @return The scenario.
+     * */
+    public Scenario withSeed(int newSeed) {
+        return new Scenario(newSeed, servers, nSelf, qMax, total, 
+            lambda, mu, rho, restProb, greedP, engine, cache);
+    }
+
+    /**
+     * Returns the same scenario drawing its variates from another engine.
+     *
+     * @param newEngine Engine of the random variates.
+     * @return The scenario.
+     * */
+    public Scenario withEngine(VariateEngine newEngine) {
+        return new Scenario(seed, servers, nSelf, qMax, total, 
+            lambda, mu, rho, restProb, greedP, newEngine, cache);
+    }
+
+    /**
+     * Returns the same scenario reading its variates from the given cache, 
+     * which gives the same variates as generating them.
+     *
+     * @param newCache Cache of the variates, or null to generate them.
+     * @return The scenario.
+     * */
+    public Scenario withCache(VariateCache newCache) {
+        return new Scenario(seed, servers, nSelf, qMax, total, 
+            lambda, mu, rho, restProb, greedP, engine, newCache);
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the same scenario seeded for the k-th of a number of 
+     * independent runs, with seed seed + 5k, so that no stream of one run is 
+     * also a stream of another.
+     *
+     * @param k Index of the run, from 0.
+     * @return The scenario.
+     * */
+    Scenario forRun(int k) {
+        return withSeed(seed + SEEDS_PER_RUN * k);
+    }
+
+    int getTotal() {
+        return total;
+    }
+
+    /**
+     * Initialises an event simulator for this scenario.
+     *
+     * @param traceLevel Events to be traced.
+     * @return The event simulator.
+     * */
+    public EventSimulator launch(TraceLevel traceLevel) {
+        return EventSimulator.launch(servers, nSelf, qMax, total, 
+            restProb, greedP, traceLevel, variates());
+    }
+
+    /**
+     * Initialises an event simulator for this scenario for variance reduction.
+     *
+     * @param traceLevel Events to be traced.
+     * @param antithetic Whether to draw the antithetic variates of the seed.
+     * @param synchronised Whether to draw the service times on arrival, see 
+     *     {@link EventSimulator#synchroniseServices}.
+     * @return The event simulator.
+     * */
+    EventSimulator launch(TraceLevel traceLevel, boolean antithetic, boolean synchronised) {
+        VariateSource variates = variates();
+        if (antithetic) {
+            variates = new AntitheticVariates(variates, lambda, mu, rho);
+        }
+        EventSimulator es = EventSimulator.launch(servers, nSelf, qMax, total, 
+            restProb, greedP, traceLevel, variates);
+        return synchronised ? es.synchroniseServices() : es;
+    }
+
+    private VariateSource variates() {
+        return cache == null 
+            ? engine.create(seed, lambda, mu, rho)
+            : new CachedVariates(cache, engine, seed, lambda, mu, rho, total);
+    }
+
+    /**
+     * Returns the parameters as comma-separated values.
+     *
+     * @return The CSV fields.
+     * */
+    String toCsv() {
+        return toString().replace(' ', ',');
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d %d %d %d %d %s %s %s %s %s", 
+            seed, servers, nSelf, qMax, total, lambda, mu, rho, restProb, greedP);
+    }
+}
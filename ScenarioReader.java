@@ -0,0 +1,259 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads scenarios from a channel, one line of ten whitespace separated
+ * parameters per scenario. The bytes are tokenized straight out of a reused 
+ * buffer, and numbers are parsed by hand where that is exact, instead of 
+ * going through a {@link java.util.Scanner}.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class ScenarioReader {
+    private static final int FIELDS = 10;
+    /**Powers of ten that are exact doubles. */
+    private static final double[] POWERS = new double[23];
+    /**Largest mantissa that is an exact double. */
+    private static final long MAX_EXACT = 1L << 53;
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    private final ReadableByteChannel in;
+    private final ByteBuffer buffer;
+    private final byte[] token;
+    private int tokenLength;
+    private boolean isEndOfLine;
+    private boolean isEndOfInput;
+
+    /**
+     * Creates a reader of the given channel.
+     *
+     * @param in The channel to read scenarios from.
+     * */
+    ScenarioReader(ReadableByteChannel in) {
+        this.in = in;
+        this.buffer = ByteBuffer.allocateDirect(1 << 16);
+        this.buffer.flip();
+        this.token = new byte[64];
+    }
+
+    /**
+     * Reads the scenario on the next non-blank line.
+     *
+     * @return The scenario, or null at the end of the input.
+     * @throws IllegalArgumentException if the line is not a scenario, or a 
+     *     parameter is out of range: a negative count, a rate that is not
+     *     positive or a probability outside [0, 1]. The rest of that line is
+     *     skipped, so reading can go on with the next line.
+     * @throws IOException if the channel cannot be read.
+     * */
+    Scenario next() throws IOException {
+        // Find the first parameter, skipping blank lines.
+        do {
+            if (isEndOfInput) {
+                return null;
+            }
+            isEndOfLine = false;
+            nextToken();
+        } while (tokenLength == 0);
+
+        try {
+            int seed = parseInt();
+            int servers = nextInt();
+            int nSelf = nextInt();
+            int qMax = nextInt();
+            int total = nextInt();
+            double lambda = nextDouble();
+            double mu = nextDouble();
+            double rho = nextDouble();
+            double restProb = nextDouble();
+            double greedP = nextDouble();
+            if (nextToken() && tokenLength > 0) {
+                throw new IllegalArgumentException("Expected " + FIELDS + " parameters");
+            }
+            checkCount("servers", servers);
+            checkCount("self-checkouts", nSelf);
+            checkCount("qMax", qMax);
+            checkCount("customers", total);
+            checkRate("lambda", lambda);
+            checkRate("mu", mu);
+            checkRate("rho", rho);
+            checkProbability("rest probability", restProb);
+            checkProbability("greedy probability", greedP);
+            return new Scenario(seed, servers, nSelf, qMax, total, 
+                lambda, mu, rho, restProb, greedP);
+        } catch (IllegalArgumentException e) {
+            skipLine();
+            throw e;
+        }
+    }
+
+    private int nextInt() throws IOException {
+        require();
+        return parseInt();
+    }
+
+    private double nextDouble() throws IOException {
+        require();
+        return parseDouble();
+    }
+
+    private void require() throws IOException {
+        if (!nextToken() || tokenLength == 0) {
+            throw new IllegalArgumentException("Expected " + FIELDS + " parameters");
+        }
+    }
+
+    /**
+     * Reads the next token of the current line into the token buffer.
+     * Returns false without a token once the line has ended.
+     * */
+    private boolean nextToken() throws IOException {
+        tokenLength = 0;
+        if (isEndOfLine) {
+            return false;
+        }
+        while (true) {
+            int b = read();
+            if (b < 0 || b == '\n') {
+                isEndOfLine = true;
+                return true;
+            } else if (b == ' ' || b == '\t' || b == '\r') {
+                if (tokenLength > 0) {
+                    return true;
+                }
+            } else if (tokenLength == token.length) {
+                throw new IllegalArgumentException("Parameter too long");
+            } else {
+                token[tokenLength++] = (byte) b;
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        while (!isEndOfLine) {
+            int b = read();
+            isEndOfLine = b < 0 || b == '\n';
+        }
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n = 0;
+            while (n == 0) {
+                n = in.read(buffer);
+            }
+            buffer.flip();
+            if (n < 0) {
+                isEndOfInput = true;
+                return -1;
+            }
+        }
+        return buffer.get() & 0xff;
+    }
+
+    private int parseInt() {
+        int i = 0;
+        boolean isNegative = token[0] == '-';
+        if (isNegative || token[0] == '+') {
+            i++;
+        }
+        if (i == tokenLength) {
+            throw badNumber();
+        }
+        long value = 0;
+        for (; i < tokenLength; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw badNumber();
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw badNumber();
+            }
+        }
+        value = isNegative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw badNumber();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a plain decimal exactly as mantissa / 10^k when both are exact
+     * doubles, since a single division is correctly rounded. Anything else is
+     * left to {@link Double#parseDouble}.
+     * */
+    private double parseDouble() {
+        int i = 0;
+        boolean isNegative = token[0] == '-';
+        if (isNegative || token[0] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < tokenLength; i++) {
+            int b = token[i];
+            if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (b >= '0' && b <= '9' && mantissa < MAX_EXACT / 10) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                return parseSlow();
+            }
+        }
+        decimals = Math.max(decimals, 0);
+        if (digits == 0 || decimals >= POWERS.length) {
+            return parseSlow();
+        }
+        double value = mantissa / POWERS[decimals];
+        return isNegative ? -value : value;
+    }
+
+    private double parseSlow() {
+        try {
+            return Double.parseDouble(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw badNumber();
+        }
+    }
+
+    private static void checkCount(String name, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative: " + value);
+        }
+    }
+
+    private static void checkRate(String name, double value) {
+        if (!(value > 0 && value < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+    }
+
+    private static void checkProbability(String name, double value) {
+        if (!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException(name + " must be in [0, 1]: " + value);
+        }
+    }
+
+    private IllegalArgumentException badNumber() {
+        return new IllegalArgumentException("Bad number: " 
+            + new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+    }
+
+}
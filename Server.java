@@ -1,7 +1,6 @@
 package cs2030.simulator;
 
-import java.util.Queue;
-import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A server class encapsulates a customer bein served
@@ -11,30 +10,61 @@ import java.util.LinkedList;
  * @see Customer
  * */
 public class Server {
+    /**Ids of the servers created outside of a simulation, from 1. */
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
     private Customer customerBeingServed;
     private double nextServiceTime;
-    private final int capacity;
-    private final Queue<Customer> waitList;
+    private final CustomerQueue waitList;
     public final int id;
-    private static int count = 0;
     private boolean isResting;
     private boolean isSelfCheckOut;
+    /**Index notified of every change of this server, may be null. */
+    private final ServerIndex index;
+    /**Position of this server in the index. */
+    private final int slot;
+
+    /**
+     * Creates an idle server, numbered after every server created this way 
+     * so far. A simulation numbers its own servers instead.
+     * 
+     * @param initCapacity Server queue max length.
+     * @param isSC Specifies if server is a self-checkout.
+     * */
+    public Server(int initCapacity, boolean isSC) {
+        this(COUNT.incrementAndGet(), initCapacity, isSC);
+    }
 
     /**
      * Creates an idle server.
      * 
+     * @param id Id of the server, unique within its simulation.
      * @param isSC Specifies if server is a self-checkout.
      * @param initCapacity Server queue max length.
      * */
-    public Server(int initCapacity, boolean isSC) {
-        count++;
-        this.id = count;
+    public Server(int id, int initCapacity, boolean isSC) {
+        this(id, initCapacity, isSC, null, 0);
+    }
+
+    /**
+     * Creates an idle server that reports its changes to the given index.
+     * 
+     * @param id Id of the server, unique within its simulation.
+     * @param initCapacity Server queue max length.
+     * @param isSC Specifies if server is a self-checkout.
+     * @param index Index of the servers, may be null.
+     * @param slot Position of this server in the index.
+     * */
+    Server(int id, int initCapacity, boolean isSC, ServerIndex index, int slot) {
+        this.id = id;
         this.nextServiceTime = 0.000;
         this.customerBeingServed = null;
-        this.capacity = initCapacity;
-        this.waitList = new LinkedList<>();
+        this.waitList = new CustomerQueue(initCapacity);
         isResting = false;
         isSelfCheckOut = isSC;
+        this.index = index;
+        this.slot = slot;
+        changed();
     }
 
     /**
@@ -64,6 +94,7 @@ public class Server {
     public void enqueue(Customer customer) {
         assert !canServe(customer) && hasWaitingSpace();
         waitList.add(customer);
+        changed();
     }
 
     /**
@@ -72,7 +103,7 @@ public class Server {
      * @return True if the waitlist/queue is empty.
      * */
     public boolean isQueueEmpty() {
-        return hasWaitingSpace() && waitList.size() == 0;
+        return waitList.isEmpty();
     }
 
     /**
@@ -91,7 +122,7 @@ public class Server {
      * @return True if there is more space for waiting customers.
      * */
     public boolean hasWaitingSpace() {
-        return waitList.size() < capacity;
+        return !waitList.isFull();
     }
 
     /**
@@ -151,7 +182,9 @@ public class Server {
      */
     public Customer dequeue() {
         assert waitList.size() > 0;
-        return waitList.poll();
+        Customer c = waitList.poll();
+        changed();
+        return c;
     }
 
     /**
@@ -173,6 +206,7 @@ public class Server {
     public void serve(Customer customer, double time, double completionTime) {
         nextServiceTime = time + completionTime;
         customerBeingServed = customer;
+        changed();
     }
 
     /**
@@ -182,6 +216,7 @@ public class Server {
     public void reset() {
         this.customerBeingServed = null;
         this.nextServiceTime = 0.000;
+        changed();
     }
 
     /**
@@ -198,6 +233,7 @@ public class Server {
      */
     public void rest() {
         isResting = true;
+        changed();
     }
 
     /**
@@ -205,6 +241,7 @@ public class Server {
      */
     public void stopResting() {
         isResting = false;
+        changed();
     }
 
     /**
@@ -216,6 +253,15 @@ public class Server {
         return isResting;
     }
 
+    /**
+     * Reports a change of this server to its index.
+     */
+    private void changed() {
+        if (index != null) {
+            index.update(slot, this);
+        }
+    }
+
     @Override
     public String toString() {
         if (this.isIdle()) {
@@ -0,0 +1,142 @@
+package cs2030.simulator;
+
+import java.util.Arrays;
+
+/**
+ * Incremental indexes over the servers of a servlet, so that an arriving
+ * customer is routed in O(log S) instead of scanning every server.
+ * Servers report every change of their state to the index, which keeps 
+ * the same server order as a scan over the server list, so the lowest index
+ * wins every tie.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class ServerIndex {
+    private static final int AVAILABLE = 0;
+    private static final int RESTING = 1;
+    private static final int BUSY = 2;
+    /**Queue key of a server without waiting space. */
+    private static final int FULL = Integer.MAX_VALUE;
+
+    /**Per server AVAILABLE, RESTING or BUSY. */
+    private final MinTree idle;
+    /**Per server the queue size, or FULL if there is no waiting space. */
+    private final MinTree queues;
+
+    /**
+     * Creates an index over the given number of servers.
+     *
+     * @param size Number of servers.
+     * */
+    ServerIndex(int size) {
+        idle = new MinTree(size);
+        queues = new MinTree(size);
+    }
+
+    /**
+     * Updates the index after the state of a server changed.
+     *
+     * @param slot Index of the server in the server list.
+     * @param server The changed server.
+     * */
+    void update(int slot, Server server) {
+        int state = !server.isIdle() 
+            ? BUSY 
+            : server.isResting() ? RESTING : AVAILABLE;
+        idle.set(slot, state);
+        queues.set(slot, server.hasWaitingSpace() ? server.getQSize() : FULL);
+    }
+
+    /**
+     * Returns the first idle server that is not resting.
+     *
+     * @return index of the server, or -1 if there is none
+     * */
+    int firstAvailable() {
+        return idle.firstBelow(RESTING);
+    }
+
+    /**
+     * Returns the first server with waiting space.
+     *
+     * @return index of the server, or -1 if there is none
+     * */
+    int firstWithSpace() {
+        return queues.firstBelow(FULL);
+    }
+
+    /**
+     * Returns the first server with the shortest queue that has waiting space.
+     *
+     * @return index of the server, or -1 if there is none
+     * */
+    int shortestQueue() {
+        return queues.min() == FULL ? -1 : queues.firstBelow(queues.min() + 1);
+    }
+
+    /**
+     * Checks if no server is idle and no server has waiting space.
+     *
+     * @return True if the house is full.
+     * */
+    boolean isFullHouse() {
+        return idle.min() == BUSY && queues.min() == FULL;
+    }
+
+    /**
+     * A segment tree over int keys answering the minimum key and the leftmost
+     * key below a bound.
+     * */
+    private static final class MinTree {
+        /**Number of leaves, a power of two. Leaf i is at tree[leaves + i]. */
+        private final int leaves;
+        private final int[] tree;
+
+        MinTree(int size) {
+            int n = 1;
+            while (n < size) {
+                n <<= 1;
+            }
+            leaves = n;
+            tree = new int[2 * n];
+            // Padding leaves never match a query.
+            Arrays.fill(tree, Integer.MAX_VALUE);
+        }
+
+        void set(int i, int key) {
+            int node = leaves + i;
+            if (tree[node] == key) {
+                return;
+            }
+            tree[node] = key;
+            node >>= 1;
+            while (node > 0) {
+                int min = Math.min(tree[2 * node], tree[2 * node + 1]);
+                if (tree[node] == min) {
+                    break;
+                }
+                tree[node] = min;
+                node >>= 1;
+            }
+        }
+
+        int min() {
+            return tree[1];
+        }
+
+        /**
+         * Returns the leftmost leaf with a key below the bound, or -1.
+         * */
+        int firstBelow(int bound) {
+            if (tree[1] >= bound) {
+                return -1;
+            }
+            int node = 1;
+            while (node < leaves) {
+                node = tree[2 * node] < bound ? 2 * node : 2 * node + 1;
+            }
+            return node - leaves;
+        }
+    }
+
+}
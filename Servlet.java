@@ -1,27 +1,38 @@
 package cs2030.simulator;
 
 import java.util.Optional;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 /**
  * A class with the logical implementation of getting the next event.
+ *
+ * <p>A customer waiting for a normal server stays at the head of its queue 
+ * until the serve event is handled, which dequeues the customer. A customer
+ * waiting for the self-checkouts is instead dequeued from their shared queue
+ * by the self-checkout whose done event claims the customer, so that two 
+ * self-checkouts done at the same time never claim the same customer.
  * 
  * @author LeeEnHao_A0204679W
  */
 public class Servlet implements EventHandler<Event> {
+    /**Index returned by the scans when no server is found. */
+    private static final int NONE = -1;
+
     /**Number of available servers. */
     private final Server[] serverList;
+    /**Index of the first self-checkout, which holds the queue of all self-checkouts. */
     private final int selfIndex;
 
-    /**The rng for server rest. */
-    private final RandomGenerator rng;
+    /**Index of the servers by availability and queue size. */
+    private final ServerIndex index;
+
+    /**The rng for service times and server rest. */
+    private final VariateSource rng;
 
     /**Benchmark for server restting probability. */
     private double probability;
 
-    /**Tracking queue for self-checkouts. Cutomers will be adidtionally enqueued here. */
-    private Queue<Customer> pq;
+    /**Creates the following events. */
+    private final EventFactory events;
 
     /**
      * Constructor for a Servlet object.
@@ -35,11 +46,33 @@ public class Servlet implements EventHandler<Event> {
     public Servlet(int servers, int checkers, int qMax, 
         RandomGenerator randomGenerator, double restProb) {
 
+        this(servers, checkers, qMax, new SimulationContext(randomGenerator), restProb, 
+            new EventAllocator());
+
+    }
+
+
+    /**
+     * Constructor for a Servlet object of the given simulation, creating its 
+     * events from the given factory.
+     *
+     * @param servers Number of servers available.
+     * @param checkers Number of self-checkouts.
+     * @param qMax Maximum queue capacity for each server.
+     * @param context Simulation allocating the server ids and providing the rng.
+     * @param restProb Probability of a normal server resting.
+     * @param eventFactory Factory of the following events.
+     * */
+    Servlet(int servers, int checkers, int qMax, 
+        SimulationContext context, double restProb, EventFactory eventFactory) {
+
         serverList = new Server[servers + checkers];
 
+        index = new ServerIndex(serverList.length);
+
         for (int i = 0; i < servers; i++) {
 
-            serverList[i] = new Server(qMax, false);
+            serverList[i] = new Server(context.nextServerId(), qMax, false, index, i);
 
         }
 
@@ -50,11 +83,13 @@ public class Servlet implements EventHandler<Event> {
 
             if (i == 0) {
 
-                serverList[servers + i] = new Server(qMax, true);
+                serverList[servers + i] = 
+                    new Server(context.nextServerId(), qMax, true, index, servers + i);
 
             } else {
 
-                serverList[servers + i] = new Server(0, true);
+                serverList[servers + i] = 
+                    new Server(context.nextServerId(), 0, true, index, servers + i);
 
             }
 
@@ -62,11 +97,11 @@ public class Servlet implements EventHandler<Event> {
 
         selfIndex = servers;
 
-        rng = randomGenerator;
+        rng = context.getRng();
 
         probability = restProb;
 
-        pq = new PriorityQueue<>();
+        events = eventFactory;
 
     }
 
@@ -83,6 +118,19 @@ public class Servlet implements EventHandler<Event> {
      * */
     @Override
     public Optional<Event> handle(Event e, Statistics stats) {
+        return Optional.ofNullable(next(e, stats));
+    }
+
+
+    /**
+     * Handles the given event and updates the statistics of the event, 
+     * without wrapping the following event.
+     *
+     * @param e The event to be handled.
+     * @param stats The event statistics tracker.
+     * @return The following event, or null if there is none.
+     * */
+    Event next(Event e, Statistics stats) {
         switch (e.state) {
 
             case ARRIVED:
@@ -107,7 +155,7 @@ public class Servlet implements EventHandler<Event> {
                 return handleServerBack(e, stats);
 
             default:
-                return Optional.empty();
+                return null;
         }
     }
 
@@ -118,27 +166,19 @@ public class Servlet implements EventHandler<Event> {
      * server completion time to schdule the next serve event.
      * Enqueues the customer at the appropriate place.
      */
-    private Optional<Event> handleWaiting(Event e, Statistics stats) {
+    private Event handleWaiting(Event e, Statistics stats) {
 
-        Server s = e.server.get();
+        Server s = e.server;
 
-        Customer c = e.customer.get();
-        // Case 1: self-checkout server
-        // Case 2: normal server
+        Customer c = e.customer;
+        // Either a normal server, or the first self-checkout as the only 
+        // self-checkout with waiting space.
 
-        if (s.isSelfCheckOut()) {
-
-            pq.add(c);
-
-            s.enqueue(c);
-
-        } else {
-
-            s.enqueue(c);
+        s.enqueue(c);
 
-        }
+        stats.queueChanged(s.id, e.time, s.getQSize());
 
-        return Optional.empty();
+        return null;
 
     }
 
@@ -146,8 +186,8 @@ public class Servlet implements EventHandler<Event> {
     /**
      * A leave event has no follwoing event.
      */
-    private Optional<Event> handleLeft(Event e, Statistics stats) {
-        return Optional.empty();
+    private Event handleLeft(Event e, Statistics stats) {
+        return null;
     }
 
 
@@ -157,11 +197,13 @@ public class Servlet implements EventHandler<Event> {
      * Upon completion of service, the server may or may not rest.
      * If it does not rest, it will log a new event where the serve serves 
      * a first-in-line customer if there is a queue. Else it will be idle.
-     * The dequeueing of customer is not done here.
+     * A normal server leaves its customer at the head of its queue until 
+     * served, while a self-checkout dequeues the customer it claims from the 
+     * shared queue here.
      * */
-    private Optional<Event> handleDone(Event e, Statistics stats) {
+    private Event handleDone(Event e, Statistics stats) {
         
-        Server s = e.server.get();
+        Server s = e.server;
 
         s.reset();
 
@@ -170,16 +212,22 @@ public class Servlet implements EventHandler<Event> {
 
         if (s.isSelfCheckOut()) { 
             // Case 1 : either checkout queue empty or not
-            if (pq.size() > 0) {
+            Server bank = serverList[selfIndex];
+
+            if (!bank.isQueueEmpty()) {
+
+                // Claim the customer now, so that another self-checkout done
+                // at the same time does not serve the same customer too.
+                Customer c = bank.dequeue();
 
-                Customer c = pq.peek();// Do not dequeue here!!!
+                stats.queueChanged(bank.id, e.time, bank.getQSize());
 
-                return Optional.of(new ServeEvent(c, e.time, s, stats));
+                return events.served(c, e.time, s, stats);
 
             } else {
 
                 // Sits idle if no customer.
-                return Optional.empty();
+                return null;
 
             }
 
@@ -189,19 +237,19 @@ public class Servlet implements EventHandler<Event> {
 
             if (restrate < probability) {
 
-                return Optional.of(ServerEvent.rest(s, e.time));
+                return events.serverRest(s, e.time);
 
             } else {
 
                 if (!s.isQueueEmpty()) {
                     
                     Customer c = s.peek();// Do not dequeue here!!!
-                    return Optional.of(new ServeEvent(c, e.time, s, stats));
+                    return events.served(c, e.time, s, stats);
 
                 } else {
                     // Else the server sits idle
                     // No next following event
-                    return Optional.empty();
+                    return null;
                 }
             }
         }
@@ -210,52 +258,51 @@ public class Servlet implements EventHandler<Event> {
 
     /**
      * Schedules a done event based on server's completion time. 
-     * Makes the server serve the customer. Dequeues customer accordingly when
-     * necessary.
+     * Makes the server serve the customer, dequeuing a customer at the head 
+     * of the queue of a normal server, and tracks the queue length and busy 
+     * time of the server. A customer of a self-checkout has already been 
+     * dequeued, if queueing at all, by {@link #handleDone}.
      * */
-    private Optional<Event> handleServed(Event e, Statistics stats) {
+    private Event handleServed(Event e, Statistics stats) {
     
-        Server s = e.server.get();      
+        Server s = e.server;      
     
-        Customer c = e.customer.get();
+        Customer c = e.customer;
     
-        double completionTime = e.time + rng.genServiceTime();
+        double completionTime = e.time + serviceTime(c);
 
         // Either of three cases: 
-        // Case 1: customer is in checkout queue 
+        // Case 1: customer is served by a self-checkout, claimed at done if queueing
         // Case 2: customer is first-in-line in normal server queue
         // Case 3: customer just arrived(not queueing)
         
         if (s.isSelfCheckOut()) {
-            // Case 1 : remove the customer from the combined queue & checkout private queue
-
-            if (pq.size() > 0) {
-
-                Customer guy = pq.poll();
-
-                assert guy.equals(c);
-
-            }
-
-            remove(c);
+            // Case 1
 
             s.serve(c, e.time, completionTime);
 
-            return Optional.of(new DoneEvent(c, completionTime, s, stats));
+            stats.serverBusy(s.id, e.time, completionTime);
+
+            return events.done(c, completionTime, s, stats);
 
         } else if (s.check(c)) {
 
             // Case 2
             s.dequeueAndServe(e.time, completionTime);
 
-            return Optional.of(new DoneEvent(c, completionTime, s, stats));
+            stats.queueChanged(s.id, e.time, s.getQSize());
+            stats.serverBusy(s.id, e.time, completionTime);
+
+            return events.done(c, completionTime, s, stats);
 
         } else {
 
             // Case 3
             s.serve(c, e.time, completionTime);
 
-            return Optional.of(new DoneEvent(c, completionTime, s, stats));
+            stats.serverBusy(s.id, e.time, completionTime);
+
+            return events.done(c, completionTime, s, stats);
 
         }
 
@@ -265,47 +312,40 @@ public class Servlet implements EventHandler<Event> {
     /**
      * Handles the arrival event. 
      * */
-    private Optional<Event> handleArrived(Event e, Statistics stats) {
+    private Event handleArrived(Event e, Statistics stats) {
 
-        Customer c = e.customer.get();
+        Customer c = e.customer;
 
-        if (!c.isGreedy()) {
+        // Scans for a server that can serve the customer now. Failing that, a
+        // normal customer joins the first queue with space while a greedy customer 
+        // joins the shortest queue. If none of the two happens, the customer leaves.
+        int index = findServer(c);
 
-            // Does a linear scan and if possible, inserts the customer accordingly
-            // so that it is either served or waiting to be served.
-            // If none of the two happens, the customer leaves.
-            Optional<Pair<Integer, State>> didCustomerLeave = linearInsert(c);
+        if (index != NONE) {
 
-            Optional<Event> ret = didCustomerLeave.map(pair -> {
-                return pair.second == State.SERVED
-                    ? new ServeEvent(c, e.time, serverList[pair.first], stats)
-                    : new WaitEvent(c, e.time, serverList[pair.first], stats);
-            });
-           
-            return ret.or(() -> Optional.of(new LeaveEvent(c, e.time, stats)));
+            return events.served(c, e.time, serverList[index], stats);
 
-        } else {
-            Optional<Pair<Integer, State>> didCusLeave = biasedInsert(c);
+        }
+
+        index = c.isGreedy() ? findShortestQueue() : findQueue();
 
-            Optional<Event> ret = didCusLeave.map(pair -> {
-                return pair.second == State.SERVED
-                    ? new ServeEvent(c, e.time, serverList[pair.first], stats)
-                    : new WaitEvent(c, e.time, serverList[pair.first], stats);
-            });
+        if (index != NONE) {
 
-            return ret.or(() -> Optional.of(new LeaveEvent(c, e.time, stats)));
+            return events.waiting(c, e.time, serverList[index], stats);
 
         }
 
+        return events.left(c, e.time, stats);
+
     }
 
 
     /**
      * Following event will be a server back event at a random time.
      */
-    private Optional<Event> handleServerRest(Event e, Statistics stats) {
+    private Event handleServerRest(Event e, Statistics stats) {
 
-        Server s = e.server.get();
+        Server s = e.server;
 
         s.rest();
 
@@ -313,7 +353,9 @@ public class Servlet implements EventHandler<Event> {
 
         double restEnd = time + rng.genRestPeriod();
 
-        return Optional.of(ServerEvent.back(s, restEnd));
+        stats.serverRest(s.id, time, restEnd);
+
+        return events.serverBack(s, restEnd);
 
     }
 
@@ -322,9 +364,9 @@ public class Servlet implements EventHandler<Event> {
      * Server stops resting. If queue is empty does nothing. 
      * Else the server will proceed to serve the first-in-line customer.
      */
-    private Optional<Event> handleServerBack(Event e, Statistics stats) {
+    private Event handleServerBack(Event e, Statistics stats) {
     
-        Server s = e.server.get();
+        Server s = e.server;
     
         assert s.isIdle();
     
@@ -337,13 +379,13 @@ public class Servlet implements EventHandler<Event> {
             // Following event to be logged is a serve event.
             Customer c = s.peek();
 
-            return Optional.of(new ServeEvent(c, e.time, s, stats));
+            return events.served(c, e.time, s, stats);
 
         } else {
 
             // Else the server sits idle.
             // No next following event.
-            return Optional.empty();
+            return null;
 
         }
 
@@ -351,124 +393,58 @@ public class Servlet implements EventHandler<Event> {
 
 
     /**
-     * Does a linear scan of all available servers to check the availability
-     * of the servers. Returns true if no server is available to serve or enqueue
-     * a customer.
+     * Checks the availability of the servers. Returns true if no server is 
+     * available to serve or enqueue a customer.
      * */
     private boolean isFullHouse() {
-        boolean boo = true;
-        for (int i = 0; i < serverList.length; i++) {
-            if (serverList[i].isIdle() || serverList[i].hasWaitingSpace()) {
-                boo = false;
-            }
-        }
-        return boo;
+        return index.isFullHouse();
     }
 
     /**
-     * Runs a linear scan twice, first to see if any server can serve the customer,
-     * second to see if the customer can join a any server's wait queue.
-     * Primary value returned would be the server identity and the state of the customer.
+     * Finds the first server that can serve the customer now, being idle and not resting.
+     * A busy server whose service has already completed by the arrival time 
+     * is never found, since its done event is of an earlier customer and so is 
+     * always handled before the arrival. This gives the same server as a linear
+     * scan with {@link Server#canServe}.
+     * 
+     * @param customer customer to be served
+     * @return index of the first such server, or NONE
      * */
-    private Optional<Pair<Integer, State>> linearInsert(Customer customer) {
-        for (int i = 0; i < serverList.length; i++) {
-
-            Server curr = serverList[i];
-
-            if (curr.canServe(customer) && !curr.isResting()) {
-
-                return Optional.of(new Pair<Integer, State>(i, State.SERVED));
-
-            }
-
-        } 
-
-        for (int i = 0; i < serverList.length; i++) {
-            // The other checkouts do not hold queues. No point in checking for queueing space
-            Server curr = serverList[i];
-
-            if (curr.hasWaitingSpace()) {
-
-                return Optional.of(new Pair<Integer, State>(i, State.WAITING));
-
-            }
-
-        }
-
-        return Optional.empty();
-
+    private int findServer(Customer customer) {
+        int i = index.firstAvailable();
+        assert i == NONE || serverList[i].canServe(customer);
+        return i;
     }
 
 
     /**
-     * Inserting a greedy customer into the queue if possible.
-     * By smallest queue size.
+     * Finds the first server the customer can join the wait queue of.
+     * The other checkouts do not hold queues, so they never have queueing space.
      * 
-     * @param customer customer to be inserted
-     * @return server index and state of customer
-     */
-    private Optional<Pair<Integer, State>> biasedInsert(Customer customer) {
-        for (int i = 0; i < serverList.length; i++) {
-
-            Server curr = serverList[i];
-
-            if (curr.canServe(customer) && !curr.isResting()) {
-
-                return Optional.of(new Pair<Integer, State>(i, State.SERVED));
-
-            }
-
-        } 
-
-        int index = -1;
-        int minQ = Integer.MAX_VALUE;
-        for (int i = 0; i < serverList.length; i++) {
-            // The other checkouts do not hold queues. No point in checking for queueing space
-            Server curr = serverList[i];
-
-            if (curr.hasWaitingSpace()) {
-
-                int qsize = curr.getQSize();
-
-                if (qsize < minQ) {
-
-                    minQ = qsize;
-
-                    index = i;
-
-                }
-
-            }
-
-        }
-
-        return index == -1 
-            ? Optional.empty()
-            : Optional.of(new Pair<Integer, State>(index, State.WAITING));
+     * @return index of the first server with waiting space, or NONE
+     * */
+    private int findQueue() {
+        return index.firstWithSpace();
+    }
 
-    } 
 
     /**
-     * Removes the customer from the focal queue of the first
-     * checkout counter.(Ultility function)
+     * Finds the queue a greedy customer joins, by smallest queue size.
      * 
-     * @param c customer to be dequeued
+     * @return index of the first server with the shortest queue with space, or NONE
      */
-    private void remove(Customer c) {
-        // The first check-out server holds the whole queue
-        serverList[selfIndex].dequeue();
-    }
+    private int findShortestQueue() {
+        return index.shortestQueue();
+    } 
 
     /**
-     * Class to store more information.
+     * Returns the service time of the customer, as recorded in a replayed
+     * trace or else drawn from the rng.
+     * 
+     * @param c customer to be served
+     * @return service time
      */
-    private static final class Pair<T, U> {
-        public final T first;
-        public final U second;
-
-        Pair(T t, U u) {
-            first = t;
-            second = u;
-        }
+    private double serviceTime(Customer c) {
+        return c.hasServiceTime() ? c.getServiceTime() : rng.genServiceTime();
     }
 }
@@ -0,0 +1,66 @@
+package cs2030.simulator;
+
+/**
+ * The state shared by the parts of one simulation: the allocation of customer
+ * and server ids, the random variates and the statistics. Nothing is shared between 
+ * contexts, so any number of simulations can run at once, and every simulation
+ * numbers its customers and servers from 1.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class SimulationContext {
+    private final VariateSource rng;
+    private final Statistics stats;
+    private int customers;
+    private int servers;
+
+    /**
+     * Creates a context for a new simulation.
+     *
+     * @param rng RNG generator for simulating random events.
+     * */
+    SimulationContext(RandomGenerator rng) {
+        this(new CompatVariates(rng));
+    }
+
+    /**
+     * Creates a context for a new simulation.
+     *
+     * @param variates Source of the random variates.
+     * */
+    SimulationContext(VariateSource variates) {
+        this.rng = variates;
+        this.stats = new Statistics();
+        this.customers = 0;
+        this.servers = 0;
+    }
+
+    /**
+     * Allocates the id of the next customer.
+     *
+     * @return Customer id, starting from 1.
+     * */
+    int nextCustomerId() {
+        customers++;
+        return customers;
+    }
+
+    /**
+     * Allocates the id of the next server.
+     *
+     * @return Server id, starting from 1.
+     * */
+    int nextServerId() {
+        servers++;
+        return servers;
+    }
+
+    VariateSource getRng() {
+        return rng;
+    }
+
+    Statistics getStatistics() {
+        return stats;
+    }
+
+}
@@ -0,0 +1,76 @@
+package cs2030.simulator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An unbounded lock-free queue between exactly one producer thread and one 
+ * consumer thread. The elements are kept in a linked list of fixed-size 
+ * chunks. The producer publishes the number of elements written with a 
+ * release store, and the consumer reads it with an acquire load, which makes 
+ * the elements and the links to new chunks visible to the consumer without 
+ * any lock or compare-and-set.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+final class SpscQueue<E> {
+    private static final int CHUNK_SIZE = 1024;
+
+    /**Number of elements written, published by the producer. */
+    private final AtomicLong written = new AtomicLong();
+
+    /**Chunk written to, index in it and number of elements written, owned by the producer. */
+    private Chunk tail;
+    private int tailIndex;
+    private long count;
+
+    /**Chunk read from, index in it and number of elements read, owned by the consumer. */
+    private Chunk head;
+    private int headIndex;
+    private long read;
+
+    SpscQueue() {
+        tail = new Chunk();
+        head = tail;
+    }
+
+    /**
+     * Adds an element at the tail. Only called by the producer.
+     *
+     * @param element The element.
+     * */
+    void offer(E element) {
+        if (tailIndex == CHUNK_SIZE) {
+            Chunk next = new Chunk();
+            tail.next = next;
+            tail = next;
+            tailIndex = 0;
+        }
+        tail.elements[tailIndex++] = element;
+        written.lazySet(++count);
+    }
+
+    /**
+     * Removes the element at the head. Only called by the consumer.
+     *
+     * @return The element, or null if the queue is empty.
+     * */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        if (read == written.get()) {
+            return null;
+        }
+        if (headIndex == CHUNK_SIZE) {
+            head = head.next;
+            headIndex = 0;
+        }
+        Object element = head.elements[headIndex];
+        head.elements[headIndex++] = null;
+        read++;
+        return (E) element;
+    }
+
+    private static final class Chunk {
+        private final Object[] elements = new Object[CHUNK_SIZE];
+        private Chunk next;
+    }
+}
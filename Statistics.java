@@ -1,17 +1,53 @@
 package cs2030.simulator;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
 /**
  * A simple class to instantiate a an object to track the event
  * statistics.
  *
+ * <p>Besides the average wait time, it keeps the distribution of the wait 
+ * times in a {@link WaitHistogram}, the loss rate of greedy and normal 
+ * customers, and per server the busy time, rest time and time-weighted queue 
+ * length. Every update is O(1) and the memory is fixed by the number of servers,
+ * however long the simulation runs.
+ *
+ * <p>The statistics of separate simulations, such as replications or shards,
+ * can be merged into one summary, and written to and read from a compact 
+ * binary record to be shipped between processes.
+ *
  * @author LeeEnHao_A0204679W
  * */
 public class Statistics {
+    /**Leading int of the binary record, "STA" and the format version. */
+    private static final int MAGIC = 0x53544101;
+    /**Percentiles of the wait time in the detailed report. */
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
 
     private double totalWaitTime;
     private int served;
     private int notServed;
 
+    private final WaitHistogram waits;
+    private int greedyServed;
+    private int greedyNotServed;
+
+    /**Per server, indexed by server id: total busy and rest time. */
+    private double[] busyTime;
+    private double[] restTime;
+    /**Per server: area under the queue length, its current value and when it last changed. */
+    private double[] queueArea;
+    private int[] queueLength;
+    private double[] queueChanged;
+    /**Largest server id seen. */
+    private int servers;
+    /**Time of the last service completion or return from rest. */
+    private double horizon;
+
     /**
      * Creates the object for tracking the statistics.
      * */
@@ -19,6 +55,16 @@ public class Statistics {
         totalWaitTime = 0.000;
         served = 0;
         notServed = 0;
+        waits = new WaitHistogram();
+        greedyServed = 0;
+        greedyNotServed = 0;
+        busyTime = new double[0];
+        restTime = new double[0];
+        queueArea = new double[0];
+        queueLength = new int[0];
+        queueChanged = new double[0];
+        servers = 0;
+        horizon = 0.000;
     }
 
     /**
@@ -29,20 +75,337 @@ public class Statistics {
      * */
     public void increaseTime(double time) {
         totalWaitTime += time;
+        waits.record(time);
     }
 
     /**
-     * Increments the total customers served.
+     * Increments the total customers served, counting the customer as not 
+     * greedy in the loss rates.
      * */
     public void served() {
+        served(false);
+    }
+
+    /**
+     * Increments the total customers served.
+     *
+     * @param customer The customer served.
+     * */
+    public void served(Customer customer) {
+        served(customer.isGreedy());
+    }
+
+    /**
+     * Increments the total customers served, of the given type.
+     *
+     * @param greedy Whether the customer served is greedy.
+     * */
+    public void served(boolean greedy) {
         served++;
+        if (greedy) {
+            greedyServed++;
+        }
     }
 
     /**
-     * Increments the toal customers not served.
+     * Increments the toal customers not served, counting the customer as not 
+     * greedy in the loss rates.
      * */
     public void notServed() {
+        notServed(false);
+    }
+
+    /**
+     * Increments the toal customers not served.
+     *
+     * @param customer The customer who left.
+     * */
+    public void notServed(Customer customer) {
+        notServed(customer.isGreedy());
+    }
+
+    /**
+     * Increments the total customers not served, of the given type.
+     *
+     * @param greedy Whether the customer who left is greedy.
+     * */
+    public void notServed(boolean greedy) {
         notServed++;
+        if (greedy) {
+            greedyNotServed++;
+        }
+    }
+
+    /**
+     * Adds a service by the given server to its busy time.
+     *
+     * @param server Id of the server.
+     * @param start Start of the service.
+     * @param end Completion of the service.
+     * */
+    void serverBusy(int server, double start, double end) {
+        ensureServer(server);
+        busyTime[server] += end - start;
+        horizon = Math.max(horizon, end);
+    }
+
+    /**
+     * Adds a rest of the given server to its rest time.
+     *
+     * @param server Id of the server.
+     * @param start Start of the rest.
+     * @param end End of the rest.
+     * */
+    void serverRest(int server, double start, double end) {
+        ensureServer(server);
+        restTime[server] += end - start;
+        horizon = Math.max(horizon, end);
+    }
+
+    /**
+     * Records a change of the queue length of the given server.
+     *
+     * @param server Id of the server.
+     * @param time Time of the change.
+     * @param length Queue length from then on.
+     * */
+    void queueChanged(int server, double time, int length) {
+        ensureServer(server);
+        queueArea[server] += queueLength[server] * (time - queueChanged[server]);
+        queueLength[server] = length;
+        queueChanged[server] = time;
+    }
+
+    /**
+     * Adds the statistics of another simulation to these, so that these 
+     * summarise both. Counts, wait times and the histograms add up, and the 
+     * per-server times add up by server id over the summed simulated time, 
+     * making the utilisations and queue lengths averages weighted by the time 
+     * simulated. Merging is associative and commutative, up to the rounding
+     * of the sums. It is meant for finished simulations: a queue of the 
+     * other statistics still open is taken as ending at the time simulated, 
+     * while these statistics must have no queue open, as they would be left 
+     * tracking it against the summed time.
+     *
+     * @param other The statistics to be merged, which are not changed.
+     * @return These statistics.
+     * @throws IllegalStateException If a queue of these statistics is still
+     *     open, as in a simulation still running.
+     * */
+    public Statistics merge(Statistics other) {
+        for (int i = 1; i <= servers; i++) {
+            if (queueLength[i] != 0) {
+                throw new IllegalStateException(
+                    "Cannot merge into statistics with the queue of server " + i + " open");
+            }
+        }
+        totalWaitTime += other.totalWaitTime;
+        served += other.served;
+        notServed += other.notServed;
+        waits.merge(other.waits);
+        greedyServed += other.greedyServed;
+        greedyNotServed += other.greedyNotServed;
+        ensureServer(other.servers);
+        for (int i = 1; i <= other.servers; i++) {
+            busyTime[i] += other.busyTime[i];
+            restTime[i] += other.restTime[i];
+            queueArea[i] += other.queueArea[i] + other.openQueueArea(i);
+        }
+        horizon += other.horizon;
+        return this;
+    }
+
+    /**
+     * Writes these statistics as a binary record.
+     *
+     * @param out The output.
+     * @throws IOException If the output fails.
+     * */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeDouble(totalWaitTime);
+        out.writeInt(served);
+        out.writeInt(notServed);
+        out.writeInt(greedyServed);
+        out.writeInt(greedyNotServed);
+        out.writeDouble(horizon);
+        out.writeInt(servers);
+        for (int i = 1; i <= servers; i++) {
+            out.writeDouble(busyTime[i]);
+            out.writeDouble(restTime[i]);
+            out.writeDouble(queueArea[i] + openQueueArea(i));
+        }
+        waits.writeTo(out);
+    }
+
+    /**
+     * Reads statistics written by {@link #writeTo}.
+     *
+     * @param in The input.
+     * @return The statistics.
+     * @throws IOException If the input fails or holds no statistics.
+     * */
+    public static Statistics readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a statistics record");
+        }
+        Statistics s = new Statistics();
+        s.totalWaitTime = in.readDouble();
+        s.served = in.readInt();
+        s.notServed = in.readInt();
+        s.greedyServed = in.readInt();
+        s.greedyNotServed = in.readInt();
+        s.horizon = in.readDouble();
+        int servers = in.readInt();
+        if (servers < 0) {
+            throw new IOException("Negative server count");
+        }
+        s.ensureServer(servers);
+        for (int i = 1; i <= servers; i++) {
+            s.busyTime[i] = in.readDouble();
+            s.restTime[i] = in.readDouble();
+            s.queueArea[i] = in.readDouble();
+        }
+        s.waits.merge(WaitHistogram.readFrom(in));
+        return s;
+    }
+
+    /**
+     * Extends the time simulated to the given time, if it is later, such as 
+     * the end of a stretch of idle time after the last service.
+     *
+     * @param time The time reached.
+     * */
+    void extendTo(double time) {
+        horizon = Math.max(horizon, time);
+    }
+
+    /**
+     * Returns the total wait time of the served customers.
+     *
+     * @return Total wait time.
+     * */
+    double getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * Returns the average wait time of the served customers.
+     *
+     * @return Average wait time, 0 if no customer was served.
+     * */
+    public double getAverageWaitTime() {
+        return served == 0 ? 0.000 : totalWaitTime / served;
+    }
+
+    /**
+     * Returns the wait time at the given percentile, to within 1/64 of it.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return Wait time, 0 if no customer was served.
+     * */
+    public double getWaitPercentile(double percentile) {
+        return waits.getPercentile(percentile);
+    }
+
+    public int getServed() {
+        return served;
+    }
+
+    public int getNotServed() {
+        return notServed;
+    }
+
+    /**
+     * Returns the fraction of the greedy or normal customers who left without 
+     * being served.
+     *
+     * @param greedy Whether to count the greedy customers or the normal ones.
+     * @return Loss rate, 0 if there were no such customers.
+     * */
+    public double getLossRate(boolean greedy) {
+        int left = greedy ? greedyNotServed : notServed - greedyNotServed;
+        int total = left + (greedy ? greedyServed : served - greedyServed);
+        return total == 0 ? 0.000 : (double) left / total;
+    }
+
+    /**
+     * Returns the fraction of the simulated time the given server was serving.
+     *
+     * @param server Id of the server.
+     * @return Utilisation of the server.
+     * */
+    public double getUtilisation(int server) {
+        return server < busyTime.length && horizon > 0 ? busyTime[server] / horizon : 0.000;
+    }
+
+    /**
+     * Returns the fraction of the simulated time the given server was resting.
+     *
+     * @param server Id of the server.
+     * @return Rest fraction of the server.
+     * */
+    public double getRestFraction(int server) {
+        return server < restTime.length && horizon > 0 ? restTime[server] / horizon : 0.000;
+    }
+
+    /**
+     * Returns the time-weighted average queue length of the given server over 
+     * the simulated time. The self-checkouts share the queue of the first one.
+     *
+     * @param server Id of the server.
+     * @return Average queue length of the server.
+     * */
+    public double getAverageQueueLength(int server) {
+        if (server >= queueArea.length || horizon <= 0) {
+            return 0.000;
+        }
+        return (queueArea[server] + openQueueArea(server)) / horizon;
+    }
+
+    /**
+     * Returns a report of the wait time distribution, the loss rates and the 
+     * servers, one item per line.
+     *
+     * @return The report.
+     * */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("wait");
+        for (double p : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, " p%.0f=%.3f", p, waits.getPercentile(p)));
+        }
+        sb.append(String.format(Locale.ROOT, " max=%.3f%n", waits.getMax()));
+        sb.append(String.format(Locale.ROOT, "loss normal=%.4f greedy=%.4f%n", 
+            getLossRate(false), getLossRate(true)));
+        for (int i = 1; i <= servers; i++) {
+            sb.append(String.format(Locale.ROOT, "server %d busy=%.4f rest=%.4f queue=%.3f%n", 
+                i, getUtilisation(i), getRestFraction(i), getAverageQueueLength(i)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the area under the queue length of the given server since its 
+     * last change, up to the time simulated.
+     * */
+    private double openQueueArea(int server) {
+        return queueLength[server] * Math.max(0, horizon - queueChanged[server]);
+    }
+
+    /**
+     * Grows the per-server arrays to hold the given server id.
+     * */
+    private void ensureServer(int server) {
+        if (server >= busyTime.length) {
+            int length = Math.max(server + 1, busyTime.length * 2);
+            busyTime = Arrays.copyOf(busyTime, length);
+            restTime = Arrays.copyOf(restTime, length);
+            queueArea = Arrays.copyOf(queueArea, length);
+            queueLength = Arrays.copyOf(queueLength, length);
+            queueChanged = Arrays.copyOf(queueChanged, length);
+        }
+        servers = Math.max(servers, server);
     }
 
     @Override
@@ -0,0 +1,148 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a batch of scenarios in parallel on a work-stealing pool and streams
+ * one CSV row per scenario as soon as it finishes. Every scenario runs in 
+ * its own simulation from its own seed, so its row does not depend on the 
+ * number of threads or on the order in which the scenarios finish.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public class Sweep {
+    /**Header of the CSV output. The index is the position of the scenario in the batch. */
+    public static final String HEADER = 
+        "index,seed,servers,nSelf,qMax,total,lambda,mu,rho,restProb,greedP,"
+        + "avgWait,served,notServed";
+
+    private static final int FIELDS = 10;
+
+    private final List<Scenario> scenarios;
+    private final Writer csv;
+
+    private Sweep(List<Scenario> scenarios, Writer csv) {
+        this.scenarios = scenarios;
+        this.csv = csv;
+    }
+
+    /**
+     * Expands a line of the ten scenario parameters into the grid of scenarios
+     * it describes. Every parameter may be a single value or a comma-separated
+     * list of values, and the grid is the cartesian product of the lists, with
+     * the last parameter varying fastest.
+     *
+     * @param line The parameters, separated by whitespace.
+     * @return The scenarios of the grid.
+     * */
+    public static List<Scenario> expand(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length != FIELDS) {
+            throw new IllegalArgumentException("Expected " + FIELDS + " parameters: " + line);
+        }
+        String[][] values = new String[FIELDS][];
+        for (int i = 0; i < FIELDS; i++) {
+            values[i] = tokens[i].split(",");
+        }
+
+        List<Scenario> grid = new ArrayList<>();
+        int[] at = new int[FIELDS];
+        while (true) {
+            grid.add(new Scenario(
+                Integer.parseInt(values[0][at[0]]), Integer.parseInt(values[1][at[1]]),
+                Integer.parseInt(values[2][at[2]]), Integer.parseInt(values[3][at[3]]),
+                Integer.parseInt(values[4][at[4]]), Double.parseDouble(values[5][at[5]]),
+                Double.parseDouble(values[6][at[6]]), Double.parseDouble(values[7][at[7]]),
+                Double.parseDouble(values[8][at[8]]), Double.parseDouble(values[9][at[9]])));
+
+            // Advance the odometer from the last parameter.
+            int i = FIELDS - 1;
+            while (i >= 0 && ++at[i] == values[i].length) {
+                at[i] = 0;
+                i--;
+            }
+            if (i < 0) {
+                return grid;
+            }
+        }
+    }
+
+    /**
+     * Runs every scenario on the given pool and writes the header and one row
+     * per scenario to the CSV writer, each row as soon as its scenario finishes.
+     *
+     * @param scenarios The scenarios.
+     * @param csv Destination of the CSV rows.
+     * @param pool The pool running the scenarios.
+     * */
+    public static void run(List<Scenario> scenarios, Writer csv, ForkJoinPool pool) {
+        Sweep sweep = new Sweep(scenarios, csv);
+        sweep.write(HEADER);
+        pool.invoke(sweep.new Batch(0, scenarios.size()));
+        sweep.flush();
+    }
+
+    private void runOne(int index) {
+        Scenario scenario = scenarios.get(index);
+        EventSimulator es = scenario.launch(TraceLevel.none());
+        es.run();
+        Statistics stats = es.getStatistics();
+        write(String.format(Locale.ROOT, "%d,%s,%.3f,%d,%d", index, scenario.toCsv(), 
+            stats.getAverageWaitTime(), stats.getServed(), stats.getNotServed()));
+    }
+
+    private void write(String row) {
+        synchronized (csv) {
+            try {
+                csv.write(row);
+                csv.write(System.lineSeparator());
+                csv.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void flush() {
+        synchronized (csv) {
+            try {
+                csv.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Runs a range of the scenarios by splitting it in halves down to single
+     * scenarios, so idle workers steal the untouched halves of busy ones and 
+     * a few long scenarios do not hold back the rest.
+     * */
+    private final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        Batch(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runOne(from);
+            } else if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Batch(from, mid), new Batch(mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays recorded arrivals from a file. The file is a plain sequence of 
+ * 16 byte records, each the arrival time and the service time of one 
+ * customer as little-endian doubles, in order of arrival time. The file is 
+ * mapped into memory one window at a time and read straight from the 
+ * mapping, so a trace of any length is streamed without being loaded.
+ *
+ * <p>Every customer carries the recorded service time, which the servers use 
+ * instead of drawing one. Whether a customer is greedy is still drawn from the
+ * rng of the simulation, as are the rests of the servers.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class TraceArrivals implements ArrivalSource {
+    static final int RECORD_SIZE = 16;
+    /**Records mapped at once. */
+    private static final int WINDOW_RECORDS = 1 << 20;
+
+    private final SimulationContext context;
+    private final VariateSource rng;
+    private final EventFactory events;
+    private final Statistics stats;
+    private final Path file;
+    /**Probability of a greedy customer. */
+    private final double greedProbability;
+    private final FileChannel channel;
+    /**Number of records replayed. */
+    private final long total;
+    private long generated;
+    private MappedByteBuffer window;
+    private double previous;
+
+    /**
+     * Opens a file of recorded arrivals.
+     *
+     * @param context Simulation allocating the customer ids and providing the 
+     *     rng for the customer types.
+     * @param file The file of recorded arrivals.
+     * @param limit Maximum number of records replayed.
+     * @param greedP Probability of a greedy customer.
+     * @param events Factory of the arrival events.
+     * @throws UncheckedIOException If the file cannot be opened.
+     * */
+    TraceArrivals(SimulationContext context, Path file, long limit, double greedP, 
+        EventFactory events) {
+        this.context = context;
+        this.rng = context.getRng();
+        this.events = events;
+        this.stats = context.getStatistics();
+        this.file = file;
+        this.greedProbability = greedP;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.total = Math.min(limit, channel.size() / RECORD_SIZE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.generated = 0;
+        this.previous = 0.000;
+        if (total == 0) {
+            close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return generated < total;
+    }
+
+    /**
+     * Replays the next arrival. The file is closed after the last one, or as
+     * soon as a record is found to be bad.
+     *
+     * @return The arrival event of the next customer.
+     * @throws IllegalArgumentException If the record is out of order or 
+     *     its service time is negative.
+     * */
+    @Override
+    public Event next() {
+        assert hasNext();
+        if (window == null || !window.hasRemaining()) {
+            map();
+        }
+        double time = window.getDouble();
+        double service = window.getDouble();
+        if (!(time >= previous) || !(service >= 0)) {
+            close();
+            throw new IllegalArgumentException(String.format(
+                "%s: record %d (%s, %s) is out of order or has a negative service time",
+                file, generated, time, service));
+        }
+        previous = time;
+        generated++;
+        if (generated == total) {
+            close();
+        }
+
+        Customer guy = new Customer(context.nextCustomerId(), time, 
+            rng.genCustomerType() < greedProbability, service);
+
+        return events.arrived(guy, time, stats);
+    }
+
+    private void map() {
+        long n = Math.min(total - generated, WINDOW_RECORDS);
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, 
+                generated * RECORD_SIZE, n * RECORD_SIZE);
+        } catch (IOException ex) {
+            close();
+            throw new UncheckedIOException(ex);
+        }
+        window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
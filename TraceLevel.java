@@ -0,0 +1,136 @@
+package cs2030.simulator;
+
+/**
+ * Decides which events of a simulation are traced. A simulation that traces
+ * nothing never formats an event.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class TraceLevel {
+    private static final int NONE = 0;
+    private static final int CUSTOMERS = 1;
+    private static final int FULL = 2;
+    private static final int SAMPLED = 3;
+    private static final int WINDOW = 4;
+
+    private final int kind;
+    /**Sampling period of customer events. */
+    private final long every;
+    /**Time window of traced customer events, from inclusive to exclusive. */
+    private final double from;
+    private final double to;
+
+    private TraceLevel(int kind, long every, double from, double to) {
+        this.kind = kind;
+        this.every = every;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Traces every event, including servers resting and coming back.
+     * 
+     * @return The trace level.
+     */
+    public static TraceLevel full() {
+        return new TraceLevel(FULL, 1, 0, 0);
+    }
+
+    /**
+     * Traces every customer event. This is the default.
+     * 
+     * @return The trace level.
+     */
+    public static TraceLevel customers() {
+        return new TraceLevel(CUSTOMERS, 1, 0, 0);
+    }
+
+    /**
+     * Traces every n-th customer event, starting with the first.
+     * 
+     * @param n The sampling period.
+     * @return The trace level.
+     */
+    public static TraceLevel sampled(long n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Sampling period must be positive: " + n);
+        }
+        return new TraceLevel(SAMPLED, n, 0, 0);
+    }
+
+    /**
+     * Traces the customer events in a time window.
+     * 
+     * @param from Start of the window, inclusive.
+     * @param to End of the window, exclusive.
+     * @return The trace level.
+     */
+    public static TraceLevel window(double from, double to) {
+        return new TraceLevel(WINDOW, 1, from, to);
+    }
+
+    /**
+     * Traces nothing, leaving only the statistics.
+     * 
+     * @return The trace level.
+     */
+    public static TraceLevel none() {
+        return new TraceLevel(NONE, 1, 0, 0);
+    }
+
+    /**
+     * Parses a trace level: one of "full", "customers", "none", "every:N" 
+     * or "window:FROM:TO".
+     * 
+     * @param s The trace level text.
+     * @return The trace level.
+     */
+    public static TraceLevel parse(String s) {
+        String[] parts = s.split(":");
+        switch (parts[0]) {
+            case "full":
+                return full();
+            case "customers":
+                return customers();
+            case "none":
+                return none();
+            case "every":
+                return sampled(Long.parseLong(parts[1]));
+            case "window":
+                return window(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            default:
+                throw new IllegalArgumentException("Unknown trace level: " + s);
+        }
+    }
+
+    /**
+     * Checks if any event is traced at all.
+     * 
+     * @return True if some events are traced.
+     */
+    boolean isEnabled() {
+        return kind != NONE;
+    }
+
+    /**
+     * Checks if an event is traced.
+     * 
+     * @param e The event.
+     * @param index Number of customer events before this one.
+     * @return True if the event is traced.
+     */
+    boolean accepts(Event e, long index) {
+        if (e.isServerEvent()) {
+            return kind == FULL;
+        }
+        switch (kind) {
+            case SAMPLED:
+                return index % every == 0;
+            case WINDOW:
+                return e.time >= from && e.time < to;
+            default:
+                return kind != NONE;
+        }
+    }
+
+}
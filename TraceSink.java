@@ -0,0 +1,23 @@
+package cs2030.simulator;
+
+/**
+ * A destination of the trace of a simulation, receiving the traced events in
+ * order.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+interface TraceSink {
+
+    /**
+     * Writes the given event. The event is not referenced after the call.
+     *
+     * @param e The event.
+     * */
+    void write(Event e);
+
+    /**
+     * Writes out everything written so far and releases the destination.
+     * */
+    void close();
+
+}
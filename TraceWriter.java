@@ -0,0 +1,239 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Writes the trace of a simulation, one line per event, in exactly the text 
+ * of {@link Event#toString}. Lines are appended into a reusable byte buffer
+ * that is written out in large chunks, and times and ids are formatted by 
+ * hand instead of through {@link String#format}.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class TraceWriter implements TraceSink {
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**Room left in the buffer for the longest line. */
+    private static final int MAX_LINE = 128;
+
+    private static final byte[] LEAVES = ascii(" leaves");
+    private static final byte[] ARRIVES = ascii(" arrives");
+    private static final byte[] DONE = ascii(" done serving by ");
+    private static final byte[] WAITS = ascii(" waits to be served by ");
+    private static final byte[] SERVED = ascii(" served by ");
+    private static final byte[] SELF_CHECK = ascii("self-check ");
+    private static final byte[] SERVER = ascii("server ");
+    private static final byte[] GREEDY = ascii("(greedy)");
+    private static final byte[] DASHES = ascii("----------");
+    private static final byte[] SHUTDOWN = ascii(" shutdown------");
+    private static final byte[] ONLINE = ascii(" online--------");
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private final byte[] newline;
+    /**
+     * Whether the default locale formats numbers with ASCII digits and a '.' 
+     * decimal point. Otherwise every line falls back to {@link Event#toString}.
+     */
+    private final boolean isPlainLocale;
+
+    /**
+     * Creates a trace writer that writes to the given stream.
+     *
+     * @param out The stream the trace is written to.
+     * */
+    TraceWriter(OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.count = 0;
+        this.newline = ascii(System.lineSeparator());
+        DecimalFormatSymbols symbols = 
+            DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        this.isPlainLocale = symbols.getZeroDigit() == '0' 
+            && symbols.getDecimalSeparator() == '.';
+    }
+
+    /**
+     * Writes the line of the given event.
+     *
+     * @param e The event.
+     * */
+    @Override
+    public void write(Event e) {
+        if (!isPlainLocale) {
+            writeBytes(e.toString().getBytes());
+            writeBytes(newline);
+            return;
+        }
+        Customer c = e.customer;
+        Server s = e.server;
+        write(e.time, e.state,
+            c == null ? 0 : c.getId(), c != null && c.isGreedy(),
+            s == null ? 0 : s.id, s != null && s.isSelfCheckOut());
+    }
+
+    /**
+     * Writes the line of an event given by its fields. Arrival and leave 
+     * events ignore the server, and server events ignore the customer.
+     * Under a locale that is not plain, the numbers are formatted by the 
+     * locale as {@link Event#toString} would.
+     *
+     * @param time The event time.
+     * @param state The event state.
+     * @param customer The customer id.
+     * @param isGreedy Whether the customer is greedy.
+     * @param server The server id.
+     * @param isSelfCheck Whether the server is a self-checkout.
+     * */
+    void write(double time, State state, int customer, boolean isGreedy, 
+        int server, boolean isSelfCheck) {
+        if (count + MAX_LINE > buffer.length) {
+            drain();
+        }
+
+        if (state == State.SERVER_REST || state == State.SERVER_BACK) {
+            writeBytes(DASHES);
+            writeTime(time);
+            buffer[count++] = ' ';
+            writeBytes(SERVER);
+            writeInt(server);
+            writeBytes(state == State.SERVER_REST ? SHUTDOWN : ONLINE);
+            writeBytes(newline);
+            return;
+        }
+
+        writeTime(time);
+        buffer[count++] = ' ';
+        writeInt(customer);
+        if (isGreedy) {
+            writeBytes(GREEDY);
+        }
+
+        if (state == State.LEFT) {
+            writeBytes(LEAVES);
+        } else if (state == State.ARRIVED) {
+            writeBytes(ARRIVES);
+        } else {
+            writeBytes(state == State.DONE 
+                ? DONE 
+                : state == State.WAITING ? WAITS : SERVED);
+            writeBytes(isSelfCheck ? SELF_CHECK : SERVER);
+            writeInt(server);
+        }
+        writeBytes(newline);
+    }
+
+    /**
+     * Writes out everything buffered so far and flushes the stream, which is
+     * left open.
+     * */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Writes out everything buffered so far and flushes the stream.
+     * */
+    void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes a time as "%.3f" does. The time is rounded from its binary value,
+     * except when that value lies too close to half a unit in the last 
+     * place, where the formatter's rounding of the shortest decimal 
+     * representation decides and so the formatter is used.
+     * */
+    private void writeTime(double time) {
+        double scaled = time * 1000;
+        if (!isPlainLocale || !(scaled >= 0 && scaled < 1e15)) {
+            writeBytes(String.format("%.3f", time).getBytes());
+            return;
+        }
+        long units = (long) scaled;
+        double frac = scaled - units;
+        if (Math.abs(frac - 0.5) <= 4 * Math.ulp(scaled)) {
+            writeBytes(String.format("%.3f", time).getBytes());
+            return;
+        }
+        if (frac > 0.5) {
+            units++;
+        }
+        writeLong(units / 1000);
+        int millis = (int) (units % 1000);
+        buffer[count++] = '.';
+        buffer[count++] = (byte) ('0' + millis / 100);
+        buffer[count++] = (byte) ('0' + millis / 10 % 10);
+        buffer[count++] = (byte) ('0' + millis % 10);
+    }
+
+    private void writeInt(int value) {
+        if (!isPlainLocale) {
+            writeBytes(String.format("%d", value).getBytes());
+            return;
+        }
+        writeLong(value);
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        // Write the digits backwards, then reverse them in place.
+        int start = count;
+        do {
+            buffer[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = count - 1; i < j; i++, j--) {
+            byte b = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = b;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        if (count + bytes.length > buffer.length) {
+            drain();
+        }
+        if (bytes.length > buffer.length) {
+            writeOut(bytes, bytes.length);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void drain() {
+        writeOut(buffer, count);
+        count = 0;
+    }
+
+    private void writeOut(byte[] bytes, int length) {
+        try {
+            out.write(bytes, 0, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+
+}
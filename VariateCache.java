@@ -0,0 +1,201 @@
+package cs2030.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An on-disk cache of pre-generated variate streams, shared by the runs of 
+ * a sweep, later runs and other processes. A stream is keyed by the engine, 
+ * seed, kind of draw and rate, and kept in its own file of little-endian 
+ * doubles. Files are read through memory mappings, and written under a 
+ * temporary name and then renamed into place, so a reader never sees a 
+ * partial file. When the files exceed the size limit, the least recently 
+ * used ones are deleted.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public final class VariateCache {
+    private static final String SUFFIX = ".var";
+    /**Doubles mapped or written at once. */
+    private static final int WINDOW = 1 << 20;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * Creates a cache in the given directory, which is created if needed.
+     *
+     * @param directory Directory of the cache files.
+     * @param maxBytes Size limit of the cache files.
+     * @throws UncheckedIOException If the directory cannot be created.
+     * */
+    public VariateCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the first length variates of a stream, generating and storing
+     * them unless the cache already holds them.
+     *
+     * @param engine Engine of the stream.
+     * @param seed Seed of the stream.
+     * @param draw Kind of draw of the stream.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @param length Number of variates needed.
+     * @return The variates, as read-only mappings in order.
+     * @throws UncheckedIOException If the cache cannot be read or written.
+     * */
+    DoubleBuffer[] open(VariateEngine engine, int seed, Draw draw, 
+        double lambda, double mu, double rho, long length) {
+        Path file = directory.resolve(name(engine, seed, draw, rate(draw, lambda, mu, rho)));
+        try {
+            if (!Files.exists(file) || Files.size(file) < length * Double.BYTES) {
+                generate(file, engine.create(seed, lambda, mu, rho), draw, length);
+                evict(file);
+            } else {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            return map(file, length);
+        } catch (NoSuchFileException ex) {
+            // Evicted by another process in between, so generate it again.
+            return open(engine, seed, draw, lambda, mu, rho, length);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the rate in the key of a stream, which is 0 for the uniform 
+     * draws as they have no rate.
+     * */
+    private static double rate(Draw draw, double lambda, double mu, double rho) {
+        switch (draw) {
+            case INTER_ARRIVAL:
+                return lambda;
+            case SERVICE:
+                return mu;
+            case REST_PERIOD:
+                return rho;
+            default:
+                return 0;
+        }
+    }
+
+    private static String name(VariateEngine engine, int seed, Draw draw, double rate) {
+        return String.format(Locale.ROOT, "%s-%s-%d-%016x%s", engine, draw, seed, 
+            Double.doubleToLongBits(rate), SUFFIX).toLowerCase(Locale.ROOT);
+    }
+
+    private void generate(Path file, VariateSource source, Draw draw, long length) 
+        throws IOException {
+        Path temp = Files.createTempFile(directory, "tmp-", ".part");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(WINDOW * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            DoubleBuffer doubles = bytes.asDoubleBuffer();
+            for (long left = length; left > 0; ) {
+                int n = (int) Math.min(left, WINDOW);
+                doubles.clear();
+                for (int i = 0; i < n; i++) {
+                    doubles.put(draw.from(source));
+                }
+                bytes.clear().limit(n * Double.BYTES);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                left -= n;
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, 
+            StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static DoubleBuffer[] map(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DoubleBuffer[] windows = new DoubleBuffer[(int) ((length + WINDOW - 1) / WINDOW)];
+            for (int w = 0; w < windows.length; w++) {
+                long start = (long) w * WINDOW;
+                long n = Math.min(length - start, WINDOW);
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, 
+                        start * Double.BYTES, n * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            }
+            return windows;
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the cache is within its 
+     * size limit, sparing the given file.
+     * */
+    private void evict(Path keep) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, Long> used = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path f : dir) {
+                files.add(f);
+                used.put(f, modified(f));
+                total += sizeOf(f);
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(used::get));
+        for (Path f : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (!f.equals(keep)) {
+                total -= sizeOf(f);
+                Files.deleteIfExists(f);
+            }
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static long modified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package cs2030.simulator;
+
+import java.util.Locale;
+
+/**
+ * The engines that can draw the random variates of a simulation.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public enum VariateEngine {
+
+    /**The {@link RandomGenerator}, reproducing the output of every existing seed. */
+    COMPAT {
+        @Override
+        VariateSource create(int seed, double lambda, double mu, double rho) {
+            return new CompatVariates(new RandomGenerator(seed, lambda, mu, rho));
+        }
+    },
+
+    /**Block-generated xoshiro256** streams with ziggurat exponentials. */
+    FAST {
+        @Override
+        VariateSource create(int seed, double lambda, double mu, double rho) {
+            return new FastVariates(seed, lambda, mu, rho);
+        }
+    };
+
+    /**
+     * Creates the variates of a simulation.
+     *
+     * @param seed Seed for random generator.
+     * @param lambda Arrival rate.
+     * @param mu Service rate.
+     * @param rho Resting rate.
+     * @return The source of the variates.
+     * */
+    abstract VariateSource create(int seed, double lambda, double mu, double rho);
+
+    /**
+     * Returns the engine of the given name, in any case.
+     *
+     * @param name Name of the engine, compat or fast.
+     * @return The engine.
+     * @throws IllegalArgumentException If there is no such engine.
+     * */
+    public static VariateEngine parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+}
@@ -0,0 +1,47 @@
+package cs2030.simulator;
+
+/**
+ * A source of every random draw of a simulation. Each kind of draw comes 
+ * from its own stream, so how often one kind is drawn never changes the 
+ * values drawn of another.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+interface VariateSource {
+
+    /**
+     * Draws the time to the next arrival, exponential with the arrival rate.
+     *
+     * @return Inter-arrival time.
+     * */
+    double genInterArrivalTime();
+
+    /**
+     * Draws a service time, exponential with the service rate.
+     *
+     * @return Service time.
+     * */
+    double genServiceTime();
+
+    /**
+     * Draws a uniform number in [0, 1) that decides whether a server rests.
+     *
+     * @return Uniform number.
+     * */
+    double genRandomRest();
+
+    /**
+     * Draws a rest period, exponential with the resting rate.
+     *
+     * @return Rest period.
+     * */
+    double genRestPeriod();
+
+    /**
+     * Draws a uniform number in [0, 1) that decides whether a customer is greedy.
+     *
+     * @return Uniform number.
+     * */
+    double genCustomerType();
+
+}
@@ -0,0 +1,168 @@
+package cs2030.simulator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A histogram of wait times in logarithmic buckets, in the manner of an HDR
+ * histogram. Every power of two is split into 64 linear sub-buckets, so any 
+ * recorded time is known to within 1/64 of its magnitude, and recording is 
+ * O(1) into a fixed number of buckets however many times are recorded.
+ * Histograms merge by adding their buckets, so the merge is exact, associative
+ * and commutative.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+class WaitHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /**Smallest power of two with buckets. Smaller times, including 0, share bucket 0. */
+    private static final int MIN_EXPONENT = -16;
+    /**Largest power of two with buckets. Larger times go into the last bucket. */
+    private static final int MAX_EXPONENT = 23;
+    private static final int BUCKETS = 1 + (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS;
+    private static final double MIN_VALUE = Math.scalb(1.0, MIN_EXPONENT);
+
+    private final long[] counts;
+    private long total;
+    private double min;
+    private double max;
+
+    /**
+     * Creates an empty histogram.
+     * */
+    WaitHistogram() {
+        counts = new long[BUCKETS];
+        total = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = 0.000;
+    }
+
+    /**
+     * Records a wait time.
+     *
+     * @param time The wait time, not negative.
+     * */
+    void record(double time) {
+        counts[bucket(time)]++;
+        total++;
+        min = Math.min(min, time);
+        max = Math.max(max, time);
+    }
+
+    /**
+     * Adds the times recorded by the other histogram to this one.
+     *
+     * @param other The histogram to be merged, which is not changed.
+     * */
+    void merge(WaitHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Writes the histogram, listing only the buckets in use.
+     *
+     * @param out The output.
+     * @throws IOException If the output fails.
+     * */
+    void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (long count : counts) {
+            if (count != 0) {
+                used++;
+            }
+        }
+        out.writeLong(total);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeShort(used);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a histogram written by {@link #writeTo}.
+     *
+     * @param in The input.
+     * @return The histogram.
+     * @throws IOException If the input fails or holds no histogram.
+     * */
+    static WaitHistogram readFrom(DataInput in) throws IOException {
+        WaitHistogram h = new WaitHistogram();
+        h.total = in.readLong();
+        h.min = in.readDouble();
+        h.max = in.readDouble();
+        int used = in.readUnsignedShort();
+        for (int i = 0; i < used; i++) {
+            int bucket = in.readUnsignedShort();
+            if (bucket >= BUCKETS) {
+                throw new IOException("Bucket " + bucket + " out of range");
+            }
+            h.counts[bucket] = in.readLong();
+        }
+        return h;
+    }
+
+    long getCount() {
+        return total;
+    }
+
+    /**
+     * Returns the wait time at the given percentile, as the middle of the 
+     * bucket holding it, clamped to the smallest and largest time recorded.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The wait time, 0 if nothing was recorded.
+     * */
+    double getPercentile(double percentile) {
+        if (total == 0) {
+            return 0.000;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, Math.max(min, middle(i)));
+            }
+        }
+        return max;
+    }
+
+    double getMax() {
+        return max;
+    }
+
+    private static int bucket(double time) {
+        if (time < MIN_VALUE) {
+            return 0;
+        }
+        int exponent = Math.getExponent(time);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        long bits = Double.doubleToRawLongBits(time);
+        int sub = (int) (bits >>> (52 - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    private static double middle(int bucket) {
+        if (bucket == 0) {
+            return 0.000;
+        }
+        int exponent = (bucket - 1) / SUB_BUCKETS + MIN_EXPONENT;
+        int sub = (bucket - 1) % SUB_BUCKETS;
+        return Math.scalb(1.0 + (sub + 0.5) / SUB_BUCKETS, exponent);
+    }
+
+}
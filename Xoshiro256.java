@@ -0,0 +1,160 @@
+package cs2030.simulator;
+
+/**
+ * The xoshiro256** generator of Blackman and Vigna, with 256 bits of state 
+ * and a period of 2^256 - 1. It is splittable: {@link #split()} hands out 
+ * the next 2^128 values as a generator of their own, so generators split from
+ * one seed never overlap. Exponential variates are drawn by the ziggurat 
+ * method of Marsaglia and Tsang, which takes one 64-bit value and a 
+ * multiplication for about 99% of the draws.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+final class Xoshiro256 {
+    private static final long[] JUMP = {
+        0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL, 0x39abdc4529b1661cL
+    };
+
+    /**Start of the tail of the ziggurat of 256 layers. */
+    private static final double R = 7.69711747013104972;
+    /**Area of each layer of the ziggurat. */
+    private static final double V = 0.0039496598225815571993;
+    /**Right edges of the layers, widest first, and the density at each. */
+    private static final double[] X = new double[257];
+    private static final double[] F = new double[257];
+
+    static {
+        X[0] = V / Math.exp(-R);
+        X[1] = R;
+        for (int i = 1; i < 255; i++) {
+            X[i + 1] = -Math.log(V / X[i] + Math.exp(-X[i]));
+        }
+        X[256] = 0;
+        for (int i = 0; i < 257; i++) {
+            F[i] = Math.exp(-X[i]);
+        }
+    }
+
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    /**
+     * Creates a generator whose state is expanded from the seed by SplitMix64.
+     *
+     * @param seed The seed.
+     * */
+    Xoshiro256(long seed) {
+        long x = seed;
+        x += 0x9e3779b97f4a7c15L;
+        s0 = mix(x);
+        x += 0x9e3779b97f4a7c15L;
+        s1 = mix(x);
+        x += 0x9e3779b97f4a7c15L;
+        s2 = mix(x);
+        x += 0x9e3779b97f4a7c15L;
+        s3 = mix(x);
+    }
+
+    private Xoshiro256(long s0, long s1, long s2, long s3) {
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+    }
+
+    /**
+     * Returns the next 64 random bits.
+     *
+     * @return Random bits.
+     * */
+    long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    /**
+     * Returns a uniform number in [0, 1) with 53 random bits.
+     *
+     * @return Uniform number.
+     * */
+    double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Returns an exponential number with rate 1.
+     *
+     * @return Exponential number.
+     * */
+    double nextExponential() {
+        double base = 0;
+        for (;;) {
+            long bits = nextLong();
+            // The low 8 bits choose the layer and the high 53 bits the point in it.
+            int i = (int) bits & 0xff;
+            double x = (bits >>> 11) * 0x1.0p-53 * X[i];
+            if (x < X[i + 1]) {
+                return base + x;
+            }
+            if (i == 0) {
+                // The tail beyond R is again exponential, shifted by R.
+                base += R;
+            } else if (F[i] + nextDouble() * (F[i + 1] - F[i]) < Math.exp(-x)) {
+                return base + x;
+            }
+        }
+    }
+
+    /**
+     * Splits off a generator for the next 2^128 values of this one, and moves
+     * this one past them.
+     *
+     * @return The split generator.
+     * */
+    Xoshiro256 split() {
+        Xoshiro256 child = new Xoshiro256(s0, s1, s2, s3);
+        jump();
+        return child;
+    }
+
+    /**
+     * Advances this generator by 2^128 values.
+     * */
+    private void jump() {
+        long t0 = 0;
+        long t1 = 0;
+        long t2 = 0;
+        long t3 = 0;
+        for (long jump : JUMP) {
+            for (int b = 0; b < 64; b++) {
+                if ((jump & (1L << b)) != 0) {
+                    t0 ^= s0;
+                    t1 ^= s1;
+                    t2 ^= s2;
+                    t3 ^= s3;
+                }
+                nextLong();
+            }
+        }
+        s0 = t0;
+        s1 = t1;
+        s2 = t2;
+        s3 = t3;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
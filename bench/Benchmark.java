@@ -0,0 +1,283 @@
+package cs2030.simulator;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * A self-contained benchmark harness for the hot paths of the simulator.
+ * Measures the variate engines, the arrival generation, the construction 
+ * and whole runs of the simulator with each future event list and the cost of
+ * each event type in the controller, for a set of scenarios varying the server count,
+ * self-checkout count, queue size and greedy probability.
+ *
+ * <p>Usage: {@code java cs2030.simulator.Benchmark [maxExponent] [iterations]}
+ * where the customer counts run from 10^4 up to 10^maxExponent (default 6).
+ * The benchmark is kept apart from the simulator sources and counts the 
+ * events of a run through a trace sink, so the simulator carries no 
+ * bookkeeping for it.
+ *
+ * @author LeeEnHao_A0204679W
+ * */
+public class Benchmark {
+    /**Scenarios as {servers, self-checkouts, qMax, greedy probability}. */
+    private static final double[][] SCENARIOS = {
+        {1, 0, 1, 0.0},
+        {4, 0, 2, 0.0},
+        {4, 4, 2, 0.5},
+        {64, 16, 8, 0.5},
+        {1000, 0, 4, 0.5},
+    };
+    private static final int SEED = 1;
+    private static final double LAMBDA_PER_SERVER = 0.9;
+    private static final double MU = 1.0;
+    private static final double RHO = 0.5;
+    private static final double REST_PROB = 0.1;
+
+    private final PrintStream out;
+    private final int iterations;
+
+    private Benchmark(PrintStream out, int iterations) {
+        this.out = out;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Entry point of the benchmark.
+     *
+     * @param args Optional maximum exponent of the customer count and
+     *     number of measured iterations.
+     * */
+    public static void main(String[] args) {
+        int maxExponent = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        new Benchmark(System.out, iterations).runAll(maxExponent);
+    }
+
+    private void runAll(int maxExponent) {
+        out.println("engine    exponential(ns/draw)  uniform(ns/draw)");
+        for (VariateEngine engine : VariateEngine.values()) {
+            benchVariates(engine, (int) Math.pow(10, maxExponent + 1));
+        }
+
+        out.println();
+        out.println("scenario                        customers  arrivals(ns/cust)");
+        for (double[] s : SCENARIOS) {
+            benchArrivals(s, (int) Math.pow(10, maxExponent));
+        }
+
+        out.println();
+        out.println("scenario                        customers  list   launch(ms)   run(ms)"
+            + "   events/s   alloc(B/cust)");
+        for (double[] s : SCENARIOS) {
+            for (int e = 4; e <= maxExponent; e++) {
+                int total = (int) Math.pow(10, e);
+                benchLaunchAndRun(s, total, "heap");
+                benchLaunchAndRun(s, total, "queue");
+                benchLaunchAndRun(s, total, "fused");
+            }
+        }
+
+        out.println();
+        out.println("scenario                        state         calls      ns/call");
+        for (double[] s : SCENARIOS) {
+            benchHandle(s, 100_000);
+        }
+    }
+
+    /**
+     * Times the draws of service times and rest decisions from the variate 
+     * engine, the exponential and uniform draws of the simulation.
+     * */
+    private void benchVariates(VariateEngine engine, int draws) {
+        long bestExponential = Long.MAX_VALUE;
+        long bestUniform = Long.MAX_VALUE;
+        double sink = 0;
+
+        for (int i = 0; i <= iterations; i++) {
+            VariateSource variates = engine.create(SEED, LAMBDA_PER_SERVER, MU, RHO);
+
+            long start = System.nanoTime();
+            for (int k = 0; k < draws; k++) {
+                sink += variates.genServiceTime();
+            }
+            long exponential = System.nanoTime();
+            for (int k = 0; k < draws; k++) {
+                sink += variates.genRandomRest();
+            }
+            long uniform = System.nanoTime();
+            if (i > 0) {
+                bestExponential = Math.min(bestExponential, exponential - start);
+                bestUniform = Math.min(bestUniform, uniform - exponential);
+            }
+        }
+
+        out.println(String.format("%-9s %20.2f %17.2f", engine, 
+            sink == 0 ? 0 : (double) bestExponential / draws, (double) bestUniform / draws));
+    }
+
+    /**
+     * Times the generation of every arrival of a run by the arrival stream, 
+     * which the simulator does interleaved with the rest of the events.
+     * */
+    private void benchArrivals(double[] s, int total) {
+        long best = Long.MAX_VALUE;
+        double sink = 0;
+
+        for (int i = 0; i <= iterations; i++) {
+            int servers = (int) s[0];
+            RandomGenerator rng = new RandomGenerator(SEED, LAMBDA_PER_SERVER * servers, MU, RHO);
+            ArrivalStream arrivals = new ArrivalStream(new SimulationContext(rng), total, s[3], 
+                new EventAllocator());
+
+            long start = System.nanoTime();
+            while (arrivals.hasNext()) {
+                sink += arrivals.next().time;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (i > 0) {
+                best = Math.min(best, elapsed);
+            }
+        }
+
+        out.println(String.format("%-30s %10d %18.1f", describe(s), total, 
+            sink == 0 ? 0 : (double) best / total));
+    }
+
+    /**
+     * Times the construction of the simulator and a full run of it, using the 
+     * event heap, the original priority queue, or the event heap with event 
+     * fusion. Reports the best of the measured iterations after one warm-up
+     * iteration.
+     * */
+    private void benchLaunchAndRun(double[] s, int total, String list) {
+        long bestLaunch = Long.MAX_VALUE;
+        long bestRun = Long.MAX_VALUE;
+        long events = 0;
+        long allocated = 0;
+
+        for (int i = 0; i <= iterations; i++) {
+            long bytes = allocatedBytes();
+
+            long start = System.nanoTime();
+            EventSimulator es = launch(s, total);
+            EventCounter counter = new EventCounter();
+            es.useTrace(counter);
+            if (list.equals("queue")) {
+                es.useEventList(new QueueEventList());
+            }
+            es.fuseEvents(list.equals("fused"));
+            long launched = System.nanoTime();
+            es.run();
+            long done = System.nanoTime();
+
+            allocated = bytes < 0 ? -1 : allocatedBytes() - bytes;
+            if (i > 0) {
+                // Iteration 0 only warms up the JIT.
+                bestLaunch = Math.min(bestLaunch, launched - start);
+                bestRun = Math.min(bestRun, done - launched);
+                events = counter.events;
+            }
+        }
+
+        out.println(String.format("%-30s %10d  %-5s %11.1f %9.1f %10.0f %15s",
+            describe(s), total, list, bestLaunch / 1e6, bestRun / 1e6,
+            events / (bestRun / 1e9),
+            allocated < 0 ? "n/a" : String.format("%.1f", (double) allocated / total)));
+    }
+
+    /**
+     * Replays the event loop of the simulator and times every call to
+     * {@link Servlet#next} by the state of the handled event.
+     * */
+    private void benchHandle(double[] s, int total) {
+        State[] states = State.values();
+        long[] nanos = new long[states.length];
+        long[] calls = new long[states.length];
+
+        for (int i = 0; i <= iterations; i++) {
+            if (i == 1) {
+                // Discard the warm-up iteration.
+                nanos = new long[states.length];
+                calls = new long[states.length];
+            }
+
+            int servers = (int) s[0];
+            RandomGenerator rng = new RandomGenerator(SEED, LAMBDA_PER_SERVER * servers, MU, RHO);
+            SimulationContext context = new SimulationContext(rng);
+            Statistics stats = context.getStatistics();
+            EventPool events = new EventPool();
+            Servlet controller = new Servlet(servers, (int) s[1], (int) s[2], context, REST_PROB,
+                events);
+            FutureEventList log = new EventHeap();
+            ArrivalStream arrivals = new ArrivalStream(context, total, s[3], events);
+            log.add(arrivals.next());
+
+            while (!log.isEmpty()) {
+                Event e = log.poll();
+                if (e.state == State.ARRIVED && arrivals.hasNext()) {
+                    log.add(arrivals.next());
+                }
+                long start = System.nanoTime();
+                Event next = controller.next(e, stats);
+                nanos[e.state.ordinal()] += System.nanoTime() - start;
+                calls[e.state.ordinal()]++;
+                if (next != null) {
+                    log.add(next);
+                }
+                events.release(e);
+            }
+        }
+
+        for (State state : states) {
+            int k = state.ordinal();
+            if (calls[k] > 0) {
+                out.println(String.format("%-30s %-11s %9d %12.1f",
+                    describe(s), state, calls[k], (double) nanos[k] / calls[k]));
+            }
+        }
+    }
+
+    private static EventSimulator launch(double[] s, int total) {
+        int servers = (int) s[0];
+        return EventSimulator.launch(SEED, servers, (int) s[1], (int) s[2], total,
+            LAMBDA_PER_SERVER * servers, MU, RHO, REST_PROB, s[3], TraceLevel.full());
+    }
+
+    private static String describe(double[] s) {
+        return String.format("k=%d self=%d qmax=%d greed=%.1f",
+            (int) s[0], (int) s[1], (int) s[2], s[3]);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if the
+     * JVM does not expose it.
+     * */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * A trace sink that only counts the events handled, as every event is 
+     * traced at the full trace level.
+     * */
+    private static final class EventCounter implements TraceSink {
+        private long events;
+
+        @Override
+        public void write(Event e) {
+            events++;
+        }
+
+        @Override
+        public void close() {
+            // Nothing is held open.
+        }
+    }
+}